@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.benchmarks;
+
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBus;
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBusHelper;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Cancellation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of delivering a single posted event to one flux created by {@link ReactorEventBusHelper} and
+ * compares it with delivering the same event to a hand-written guava listener, and with posting it to a
+ * {@link ReactorEventBus} that matches the hierarchy or the exact type of the event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerDispatchBenchmark {
+
+    private static final Integer EVENT = 42;
+
+    private EventBus handWrittenEventBus;
+    private EventBus fluxEventBus;
+    private Cancellation fluxCancellation;
+    private ReactorEventBus hierarchyEventBus;
+    private Cancellation hierarchyCancellation;
+    private ReactorEventBus exactEventBus;
+    private Cancellation exactCancellation;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        handWrittenEventBus = new EventBus();
+        handWrittenEventBus.register(new HandWrittenListener(blackhole));
+
+        fluxEventBus = new EventBus();
+        fluxCancellation = new ReactorEventBusHelper(fluxEventBus).listenFor(Integer.class).subscribe(blackhole::consume);
+
+        hierarchyEventBus = new ReactorEventBus("hierarchy", ReactorEventBus.Ordering.IMMEDIATE,
+                ReactorEventBus.TypeMatching.HIERARCHY);
+        hierarchyCancellation = new ReactorEventBusHelper(hierarchyEventBus).listenFor(Integer.class)
+                .subscribe(blackhole::consume);
+
+        exactEventBus = new ReactorEventBus("exact", ReactorEventBus.Ordering.IMMEDIATE,
+                ReactorEventBus.TypeMatching.EXACT);
+        exactCancellation = new ReactorEventBusHelper(exactEventBus).listenFor(Integer.class)
+                .subscribe(blackhole::consume);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fluxCancellation.dispose();
+        hierarchyCancellation.dispose();
+        exactCancellation.dispose();
+    }
+
+    @Benchmark
+    public void postToHandWrittenListener() {
+        handWrittenEventBus.post(EVENT);
+    }
+
+    @Benchmark
+    public void postToFlux() {
+        fluxEventBus.post(EVENT);
+    }
+
+    @Benchmark
+    public void postToFluxOfHierarchyMatchingBus() {
+        hierarchyEventBus.post(EVENT);
+    }
+
+    @Benchmark
+    public void postToFluxOfExactMatchingBus() {
+        exactEventBus.post(EVENT);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.benchmarks;
+
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBusHelper;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the first {@link ReactorEventBusHelper#listenFor(Class)} call for an event class, which generates
+ * its listener class, and compares it with the first registration of a hand-written guava listener with a new
+ * {@link EventBus}. The listener classes are evicted before every invocation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = 1)
+@Measurement(iterations = 100, batchSize = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ListenerGenerationBenchmark {
+
+    private ReactorEventBusHelper helper;
+    private HandWrittenListener handWrittenListener;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        helper = new ReactorEventBusHelper(new EventBus());
+        handWrittenListener = new HandWrittenListener(blackhole);
+    }
+
+    @Setup(Level.Invocation)
+    public void evictListenerClasses() {
+        helper.evictListenerClasses();
+    }
+
+    @Benchmark
+    public EventBus registerHandWrittenListener() {
+        EventBus eventBus = new EventBus();
+        eventBus.register(handWrittenListener);
+        return eventBus;
+    }
+
+    @Benchmark
+    public Flux<Integer> generateListener() {
+        return helper.listenFor(Integer.class);
+    }
+}
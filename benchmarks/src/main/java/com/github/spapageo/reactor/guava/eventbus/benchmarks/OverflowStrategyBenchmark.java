@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.benchmarks;
+
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBusHelper;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Cancellation;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the latency of delivering a posted event to a subscriber with unbounded demand through a flux of each
+ * {@link OverflowStrategy}, compared with a hand-written guava listener.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OverflowStrategyBenchmark {
+
+    private static final Integer EVENT = 42;
+
+    @Param({"BUFFER", "DROP", "LATEST", "ERROR", "IGNORE"})
+    private OverflowStrategy overflowStrategy;
+
+    private EventBus handWrittenEventBus;
+    private EventBus fluxEventBus;
+    private Cancellation fluxCancellation;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        handWrittenEventBus = new EventBus();
+        handWrittenEventBus.register(new HandWrittenListener(blackhole));
+
+        fluxEventBus = new EventBus();
+        fluxCancellation = new ReactorEventBusHelper(fluxEventBus)
+                .listenFor(Integer.class, overflowStrategy)
+                .subscribe(blackhole::consume);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fluxCancellation.dispose();
+    }
+
+    @Benchmark
+    public void postToHandWrittenListener() {
+        handWrittenEventBus.post(EVENT);
+    }
+
+    @Benchmark
+    public void postToFlux() {
+        fluxEventBus.post(EVENT);
+    }
+}
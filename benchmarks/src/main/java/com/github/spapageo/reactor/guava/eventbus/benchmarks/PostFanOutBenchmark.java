@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.benchmarks;
+
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBusHelper;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Cancellation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of posting an event to an {@link EventBus} with an increasing number of fluxes attached,
+ * with one listener per flux and with a shared multicast listener, and compares it with the same number of
+ * hand-written guava listeners.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostFanOutBenchmark {
+
+    private static final Integer EVENT = 42;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int subscriberCount;
+
+    private EventBus handWrittenEventBus;
+    private EventBus fluxEventBus;
+    private EventBus multicastEventBus;
+    private final List<Cancellation> cancellations = new ArrayList<>();
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        handWrittenEventBus = new EventBus();
+        fluxEventBus = new EventBus();
+        multicastEventBus = new EventBus();
+        ReactorEventBusHelper helper = new ReactorEventBusHelper(fluxEventBus);
+        ReactorEventBusHelper multicastHelper = ReactorEventBusHelper.builder(multicastEventBus).multicast(true).build();
+
+        for (int i = 0; i < subscriberCount; i++) {
+            handWrittenEventBus.register(new HandWrittenListener(blackhole));
+            cancellations.add(helper.listenFor(Integer.class).subscribe(blackhole::consume));
+            cancellations.add(multicastHelper.listenFor(Integer.class).subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cancellations.forEach(Cancellation::dispose);
+        cancellations.clear();
+    }
+
+    @Benchmark
+    public void postToHandWrittenListeners() {
+        handWrittenEventBus.post(EVENT);
+    }
+
+    @Benchmark
+    public void postToFluxes() {
+        fluxEventBus.post(EVENT);
+    }
+
+    @Benchmark
+    public void postToMulticastFluxes() {
+        multicastEventBus.post(EVENT);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus.benchmarks;
+
+import com.github.spapageo.reactor.guava.eventbus.ShardedReactorEventBusHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Cancellation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of posting events from all the available cores to a {@link ShardedReactorEventBusHelper}
+ * with a flux attached, with an increasing number of shards. A single shard is equivalent to a plain event bus.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ShardedPostBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int shardCount;
+
+    private ShardedReactorEventBusHelper helper;
+    private Cancellation cancellation;
+
+    @State(Scope.Thread)
+    public static class PosterState {
+        private int key;
+    }
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        helper = new ShardedReactorEventBusHelper(shardCount);
+        cancellation = helper.listenFor(Integer.class).subscribe(blackhole::consume);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cancellation.dispose();
+        helper.close();
+    }
+
+    @Benchmark
+    public void postToShards(PosterState posterState) {
+        int key = posterState.key++;
+        helper.post(key, key);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.benchmarks;
+
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBusHelper;
+import com.google.common.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of subscribing to and cancelling a flux created by {@link ReactorEventBusHelper} and compares
+ * it with registering and unregistering a hand-written guava listener.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubscribeChurnBenchmark {
+
+    private EventBus eventBus;
+    private HandWrittenListener handWrittenListener;
+    private Flux<Integer> flux;
+    private Flux<Integer> multicastFlux;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        eventBus = new EventBus();
+        handWrittenListener = new HandWrittenListener(blackhole);
+        flux = new ReactorEventBusHelper(eventBus).listenFor(Integer.class);
+        multicastFlux = ReactorEventBusHelper.builder(eventBus).multicast(true).build().listenFor(Integer.class);
+    }
+
+    @Benchmark
+    public void registerHandWrittenListener() {
+        eventBus.register(handWrittenListener);
+        eventBus.unregister(handWrittenListener);
+    }
+
+    @Benchmark
+    public void subscribeFlux() {
+        flux.subscribe().dispose();
+    }
+
+    @Benchmark
+    public void subscribeMulticastFlux() {
+        multicastFlux.subscribe().dispose();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code GeneratedListenerProvider} for every type annotated with {@code GenerateListeners}. The provider
+ * contains a {@code ReactorCacheListener} sub-class for each of the declared event types and is registered as a
+ * service so that the listeners do not have to be generated with bytecode generation at runtime.
+ */
+public class GenerateListenersProcessor extends AbstractProcessor {
+    static final String GENERATE_LISTENERS = "com.github.spapageo.reactor.guava.eventbus.GenerateListeners";
+    static final String GENERATED_SUFFIX = "_GeneratedListeners";
+
+    private static final String PROVIDER = "com.github.spapageo.reactor.guava.eventbus.GeneratedListenerProvider";
+    private static final String LISTENER = "com.github.spapageo.reactor.guava.eventbus.ReactorCacheListener";
+    private static final String FLUX_SINK = "reactor.core.publisher.FluxSink";
+    private static final String SUBSCRIBE = "com.google.common.eventbus.Subscribe";
+    private static final String ALLOW_CONCURRENT_EVENTS = "com.google.common.eventbus.AllowConcurrentEvents";
+
+    private final Set<String> generatedProviders = new LinkedHashSet<>();
+
+    private Filer filer;
+    private Messager messager;
+    private Elements elements;
+    private Types types;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GENERATE_LISTENERS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        TypeElement generateListeners = elements.getTypeElement(GENERATE_LISTENERS);
+        if (generateListeners == null) {
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(generateListeners)) {
+            TypeElement annotatedType = (TypeElement) element;
+            List<DeclaredType> eventTypes = eventTypes(annotatedType);
+            if (eventTypes != null) {
+                writeProvider(annotatedType, eventTypes);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the event types of the {@code GenerateListeners} annotation of the given type
+     * @return the event types or {@code null} if any of them is not supported
+     */
+    private List<DeclaredType> eventTypes(TypeElement annotatedType) {
+        List<DeclaredType> eventTypes = new ArrayList<>();
+        boolean valid = true;
+        for (AnnotationMirror annotationMirror : annotatedType.getAnnotationMirrors()) {
+            TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (!annotationElement.getQualifiedName().contentEquals(GENERATE_LISTENERS)) {
+                continue;
+            }
+
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotationMirror.getElementValues().entrySet()) {
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                for (AnnotationValue value : values) {
+                    TypeMirror eventType = (TypeMirror) value.getValue();
+                    if (eventType.getKind() != TypeKind.DECLARED) {
+                        messager.printMessage(Diagnostic.Kind.ERROR,
+                                "Primitive and array event types are not supported by guava EventBus: " + eventType,
+                                annotatedType, annotationMirror, value);
+                        valid = false;
+                    } else if (!isAccessible((TypeElement) types.asElement(eventType), annotatedType)) {
+                        messager.printMessage(Diagnostic.Kind.ERROR,
+                                "Event type " + eventType + " is not accessible from " + annotatedType,
+                                annotatedType, annotationMirror, value);
+                        valid = false;
+                    } else {
+                        eventTypes.add((DeclaredType) eventType);
+                    }
+                }
+            }
+        }
+        return valid ? eventTypes : null;
+    }
+
+    private boolean isAccessible(TypeElement eventElement, TypeElement annotatedType) {
+        boolean samePackage = elements.getPackageOf(eventElement).equals(elements.getPackageOf(annotatedType));
+        for (Element element = eventElement; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)
+                    || (!modifiers.contains(Modifier.PUBLIC) && !samePackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeProvider(TypeElement annotatedType, List<DeclaredType> eventTypes) {
+        PackageElement packageElement = elements.getPackageOf(annotatedType);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String simpleName = providerSimpleName(annotatedType, packageName);
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        try {
+            JavaFileObject sourceFile = filer.createSourceFile(qualifiedName, annotatedType);
+            try (PrintWriter writer = new PrintWriter(sourceFile.openWriter())) {
+                writeProviderSource(writer, packageName, simpleName, eventTypes);
+            }
+            generatedProviders.add(qualifiedName);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write the listener provider " + qualifiedName + ": " + e.getMessage(), annotatedType);
+        }
+    }
+
+    private static String providerSimpleName(TypeElement annotatedType, String packageName) {
+        String qualifiedName = annotatedType.getQualifiedName().toString();
+        String nestedName = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        return nestedName.replace('.', '_') + GENERATED_SUFFIX;
+    }
+
+    private void writeProviderSource(PrintWriter writer, String packageName, String simpleName,
+                                     List<DeclaredType> eventTypes) {
+        if (!packageName.isEmpty()) {
+            writer.println("package " + packageName + ";");
+            writer.println();
+        }
+        writer.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+        writer.println("public final class " + simpleName + " implements " + PROVIDER + " {");
+        writer.println();
+        writer.println("    @Override");
+        writer.println("    public void registerListeners(Registrar registrar) {");
+        for (int i = 0; i < eventTypes.size(); i++) {
+            String eventType = eventTypeName(eventTypes.get(i));
+            writer.println("        registrar.register(" + eventType + ".class, Listener" + i + ".class, Listener" + i
+                    + "::new);");
+        }
+        writer.println("    }");
+        for (int i = 0; i < eventTypes.size(); i++) {
+            String eventType = eventTypeName(eventTypes.get(i));
+            writer.println();
+            writer.println("    public static final class Listener" + i + " extends " + LISTENER + "<" + eventType
+                    + "> {");
+            writer.println("        public Listener" + i + "(" + FLUX_SINK + "<" + eventType + "> fluxSink) {");
+            writer.println("            super(fluxSink);");
+            writer.println("        }");
+            writer.println();
+            writer.println("        @" + SUBSCRIBE);
+            writer.println("        @" + ALLOW_CONCURRENT_EVENTS);
+            writer.println("        public void listenGenerated(" + eventType + " event) {");
+            writer.println("            fluxSink.next(event);");
+            writer.println("        }");
+            writer.println("    }");
+        }
+        writer.println("}");
+    }
+
+    private String eventTypeName(DeclaredType eventType) {
+        return ((TypeElement) types.asElement(eventType)).getQualifiedName().toString();
+    }
+
+    private void writeServiceFile() {
+        if (generatedProviders.isEmpty()) {
+            return;
+        }
+        String resourceName = "META-INF/services/" + PROVIDER;
+        try {
+            FileObject serviceFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (Writer writer = serviceFile.openWriter()) {
+                for (String generatedProvider : generatedProviders) {
+                    writer.write(generatedProvider);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write the service file " + resourceName + ": " + e.getMessage());
+        }
+    }
+}
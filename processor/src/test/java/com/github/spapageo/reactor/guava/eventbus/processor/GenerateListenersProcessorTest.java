@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus.processor;
+
+import com.github.spapageo.reactor.guava.eventbus.GeneratedListenerProvider;
+import com.github.spapageo.reactor.guava.eventbus.ListenerConstructor;
+import com.github.spapageo.reactor.guava.eventbus.ReactorCacheListener;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import static org.junit.Assert.*;
+
+public class GenerateListenersProcessorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void process_whenGivenEventTypes_generatesRegisteredProviderWithAnnotatedListeners() throws Exception {
+        File sources = temporaryFolder.newFolder("sources");
+        File classes = temporaryFolder.newFolder("classes");
+        writeSource(sources, "Event", "package test;\npublic class Event {\n}\n");
+        writeSource(sources, "Events", "package test;\n"
+                + "@com.github.spapageo.reactor.guava.eventbus.GenerateListeners({String.class, Event.class})\n"
+                + "public class Events {\n}\n");
+
+        assertTrue(compile(sources, classes, new DiagnosticCollector<>()));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()},
+                getClass().getClassLoader())) {
+            Iterator<GeneratedListenerProvider> providers =
+                    ServiceLoader.load(GeneratedListenerProvider.class, classLoader).iterator();
+            GeneratedListenerProvider provider = providers.next();
+            assertEquals("test.Events" + GenerateListenersProcessor.GENERATED_SUFFIX, provider.getClass().getName());
+            assertFalse(providers.hasNext());
+
+            Map<Class<?>, Class<?>> listeners = new HashMap<>();
+            provider.registerListeners(new GeneratedListenerProvider.Registrar() {
+                @Override
+                public <T> void register(Class<T> eventClass, Class<? extends ReactorCacheListener<T>> listenerClass,
+                                         ListenerConstructor<T> listenerConstructor) {
+                    listeners.put(eventClass, listenerClass);
+                }
+            });
+
+            Class<?> eventClass = classLoader.loadClass("test.Event");
+            assertEquals(2, listeners.size());
+            assertNotNull(listeners.get(String.class).getMethod("listenGenerated", String.class)
+                    .getAnnotation(Subscribe.class));
+            assertNotNull(listeners.get(eventClass).getMethod("listenGenerated", eventClass)
+                    .getAnnotation(Subscribe.class));
+        }
+    }
+
+    @Test
+    public void process_whenGivenPrimitiveEventType_reportsError() throws Exception {
+        File sources = temporaryFolder.newFolder("sources");
+        File classes = temporaryFolder.newFolder("classes");
+        writeSource(sources, "Events", "package test;\n"
+                + "@com.github.spapageo.reactor.guava.eventbus.GenerateListeners(int.class)\n"
+                + "public class Events {\n}\n");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        assertFalse(compile(sources, classes, diagnostics));
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(diagnostic ->
+                diagnostic.getKind() == Diagnostic.Kind.ERROR
+                        && diagnostic.getMessage(null).contains("Primitive and array event types")));
+    }
+
+    private static void writeSource(File sources, String name, String content) throws Exception {
+        Files.write(new File(sources, name + ".java").toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean compile(File sources, File classes, DiagnosticCollector<JavaFileObject> diagnostics)
+            throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+                StandardCharsets.UTF_8)) {
+            List<String> options = new ArrayList<>(Arrays.asList(
+                    "-d", classes.getPath(), "-classpath", System.getProperty("java.class.path")));
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(sources.listFiles());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+            task.setProcessors(Arrays.asList(new GenerateListenersProcessor()));
+            return task.call();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Base class of the {@link FluxSink}s that are given to a {@link ReactorCacheListener} and transform or route the
+ * events before they reach the sinks of the subscribed fluxes. It keeps the lifecycle callbacks of the sink: the cancel
+ * callbacks run once when the sink is cancelled, which for a fan-out sink means that its last subscriber is removed,
+ * and the dispose callbacks run once when the sink is either cancelled or terminated. Callbacks that are added after
+ * that point run immediately, or never if they can no longer apply.
+ * <p>
+ * A request callback is invoked with the outstanding demand when it is attached and with every later request that the
+ * sink observes. Fan-out sinks do not observe the requests of their subscribers, so they only report the demand at the
+ * time of the call.
+ * </p>
+ * @param <T> the type of events that this sink receives
+ */
+abstract class AbstractEventSink<T> implements FluxSink<T> {
+    private static final Disposable RAN = () -> { };
+    private static final Disposable DISCARDED = () -> { };
+
+    private final AtomicReference<Disposable> cancelCallbacks = new AtomicReference<>();
+    private final AtomicReference<Disposable> disposeCallbacks = new AtomicReference<>();
+    private volatile LongConsumer requestConsumer;
+
+    /**
+     * Event sinks accept concurrent calls to {@link #next(Object)} so the sink is already serialized
+     * @return this sink
+     */
+    @Override
+    @Deprecated
+    public FluxSink<T> serialize() {
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onRequest(LongConsumer consumer) {
+        requestConsumer = checkNotNull(consumer);
+        long requested = requestedFromDownstream();
+        if (requested > 0) {
+            consumer.accept(requested);
+        }
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onCancel(Disposable onCancel) {
+        addCallback(cancelCallbacks, checkNotNull(onCancel));
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onDispose(Disposable onDispose) {
+        addCallback(disposeCallbacks, checkNotNull(onDispose));
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public void setCancellation(reactor.core.Cancellation cancellation) {
+        checkNotNull(cancellation);
+        onDispose(cancellation::dispose);
+    }
+
+    /**
+     * Reports a request of the downstream to the request callback
+     * @param n the number of requested events
+     */
+    protected final void requested(long n) {
+        LongConsumer consumer = requestConsumer;
+        if (consumer != null) {
+            consumer.accept(n);
+        }
+    }
+
+    /**
+     * Runs the cancel and then the dispose callbacks, unless the sink has already been cancelled or terminated
+     */
+    protected final void cancelled() {
+        runCallbacks(cancelCallbacks, RAN);
+        runCallbacks(disposeCallbacks, RAN);
+    }
+
+    /**
+     * Runs the dispose callbacks and discards the cancel callbacks, unless the sink has already been cancelled or
+     * terminated
+     */
+    protected final void terminated() {
+        runCallbacks(cancelCallbacks, DISCARDED);
+        runCallbacks(disposeCallbacks, RAN);
+    }
+
+    private static void addCallback(AtomicReference<Disposable> callbacks, Disposable callback) {
+        for (;;) {
+            Disposable current = callbacks.get();
+            if (current == RAN) {
+                callback.dispose();
+                return;
+            }
+            if (current == DISCARDED) {
+                return;
+            }
+            Disposable next = current == null ? callback : () -> {
+                current.dispose();
+                callback.dispose();
+            };
+            if (callbacks.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private static void runCallbacks(AtomicReference<Disposable> callbacks, Disposable outcome) {
+        Disposable current;
+        do {
+            current = callbacks.get();
+            if (current == RAN || current == DISCARDED) {
+                return;
+            }
+        } while (!callbacks.compareAndSet(current, outcome));
+        if (current != null && outcome == RAN) {
+            current.dispose();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A sink that accumulates the events it receives in pre-sized batches on the posting thread and propagates each batch
+ * to the downstream {@link FluxSink} once, either when it is full or when its oldest event has waited for the maximum
+ * latency. Its lifecycle callbacks are those of the downstream sink, so a request callback receives the number of
+ * requested batches.
+ * <p>
+ * A full or due batch is swapped out under the lock into a queue of ready batches, which is drained after the lock is
+ * released by whichever thread is not beaten to it by another, so a slow downstream does not block the other posting
+ * threads and the batches are still propagated one at a time in the order they were swapped out. A single flush task
+ * is pending at any time: when it fires before the current batch is due, because the batch it was scheduled for was
+ * propagated when it got full, it re-arms itself for the remaining latency of the current batch instead of a new task
+ * being scheduled for every batch.
+ * </p>
+ * @param <T> the type of events that this sink receives
+ */
+final class BatchingFluxSink<T> extends AbstractEventSink<T> implements Disposable {
+    private final FluxSink<List<T>> downstream;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final Scheduler timer;
+    private final Queue<List<T>> ready = new ArrayDeque<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private List<T> batch;
+    private long batchStartNanos;
+    @SuppressWarnings("deprecation")
+    private reactor.core.Cancellation flushTask;
+    private boolean disposed;
+    private boolean done;
+    private Throwable error;
+
+    BatchingFluxSink(FluxSink<List<T>> downstream, int maxBatchSize, Duration maxLatency, Scheduler timer) {
+        this.downstream = checkNotNull(downstream);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.timer = checkNotNull(timer);
+    }
+
+    @Override
+    public void next(T event) {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            if (batch == null) {
+                batch = new ArrayList<>(maxBatchSize);
+                batchStartNanos = timer.now(TimeUnit.NANOSECONDS);
+                if (flushTask == null) {
+                    scheduleFlush(maxLatencyNanos);
+                }
+            }
+            batch.add(event);
+            if (batch.size() < maxBatchSize) {
+                return;
+            }
+            ready.add(batch);
+            batch = null;
+        }
+        drain();
+    }
+
+    private void flush() {
+        synchronized (this) {
+            flushTask = null;
+            if (disposed || batch == null) {
+                return;
+            }
+            long age = timer.now(TimeUnit.NANOSECONDS) - batchStartNanos;
+            if (age < maxLatencyNanos) {
+                scheduleFlush(maxLatencyNanos - age);
+                return;
+            }
+            ready.add(batch);
+            batch = null;
+        }
+        drain();
+    }
+
+    private void scheduleFlush(long delayNanos) {
+        flushTask = timer.schedule(this::flush, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Propagates the ready batches, one at a time and in order, followed by the terminal signal once the sink is done.
+     * Only one thread drains at a time, a thread that finds another draining leaves its batches to it.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            List<T> next;
+            while ((next = pollReady()) != null) {
+                downstream.next(next);
+            }
+            boolean terminate;
+            Throwable failure;
+            synchronized (this) {
+                terminate = done && ready.isEmpty();
+                failure = error;
+                if (terminate) {
+                    done = false;
+                }
+            }
+            if (terminate && failure != null) {
+                downstream.error(failure);
+            } else if (terminate) {
+                downstream.complete();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized List<T> pollReady() {
+        return ready.poll();
+    }
+
+    /**
+     * Propagates the pending batch, if any, after the ready ones and completes the downstream sink
+     */
+    @Override
+    public void complete() {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            if (batch != null) {
+                ready.add(batch);
+            }
+            stop();
+            done = true;
+        }
+        drain();
+    }
+
+    /**
+     * Discards the pending batch, if any, and errors the downstream sink after propagating the ready batches
+     */
+    @Override
+    public void error(Throwable e) {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            stop();
+            error = e;
+            done = true;
+        }
+        drain();
+    }
+
+    @Override
+    public long requestedFromDownstream() {
+        return downstream.requestedFromDownstream();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return downstream.isCancelled();
+    }
+
+    @Override
+    public FluxSink<T> onRequest(LongConsumer consumer) {
+        downstream.onRequest(consumer);
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onCancel(Disposable onCancel) {
+        downstream.onCancel(onCancel);
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onDispose(Disposable onDispose) {
+        downstream.onDispose(onDispose);
+        return this;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        stop();
+        ready.clear();
+    }
+
+    private void stop() {
+        disposed = true;
+        batch = null;
+        if (flushTask != null) {
+            flushTask.dispose();
+            flushTask = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isDisposed() {
+        return disposed;
+    }
+}
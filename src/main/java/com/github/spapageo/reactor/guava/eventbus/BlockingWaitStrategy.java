@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link RingBufferWaitStrategy} that blocks the posting thread until the buffer has space or a timeout elapses. The
+ * buffered fluxes recognise it and wait to be signalled by their consumer. Invoked as a plain wait strategy it parks
+ * the posting thread in slices of the timeout instead.
+ */
+final class BlockingWaitStrategy implements RingBufferWaitStrategy {
+    private static final int SLICES = 64;
+
+    private final long timeoutNanos;
+    private final long sliceNanos;
+
+    BlockingWaitStrategy(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+        this.sliceNanos = Math.max(1, timeoutNanos / SLICES);
+    }
+
+    long timeoutNanos() {
+        return timeoutNanos;
+    }
+
+    @Override
+    public boolean await(int attempt) {
+        if ((long) attempt * sliceNanos >= timeoutNanos) {
+            return false;
+        }
+        LockSupport.parkNanos(sliceNanos);
+        return true;
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.reactivestreams.Subscriber;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.Fuseable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link Flux} of events that buffers the events of each subscriber in a queue of its own. The queue is filled by
+ * the posting threads through the {@link FluxSink} that is registered with the event bus and drained by whichever
+ * thread posts or requests, one at a time. When the queue rejects an event the posting thread consults a
+ * {@link RingBufferWaitStrategy}, or waits to be signalled by the consumer when the strategy is a blocking one, and
+ * hands the event over to an {@link OverflowFallback} when it gives up.
+ * <p>
+ * The flux supports asynchronous queue fusion, so operators such as {@code publishOn} poll the queue of the
+ * subscription directly instead of copying every event into a queue of their own.
+ * </p>
+ * @param <T> the type of the events
+ */
+final class BufferedEventFlux<T> extends Flux<T> implements Fuseable {
+    private final Function<FluxSink<T>, Disposable> registrar;
+    private final Supplier<? extends Queue<T>> queueSupplier;
+    private final RingBufferWaitStrategy waitStrategy;
+    private final OverflowFallback<? super T> overflowFallback;
+
+    /**
+     * @param registrar        registers the given sink with the event bus and returns a {@link Disposable} that
+     *                         unregisters it
+     * @param queueSupplier    supplies the queue of each subscriber, it must support concurrent producers
+     * @param waitStrategy     decides what the posting thread does when the queue is full
+     * @param overflowFallback decides what happens to an event once the wait strategy gives up
+     */
+    BufferedEventFlux(Function<FluxSink<T>, Disposable> registrar, Supplier<? extends Queue<T>> queueSupplier,
+                      RingBufferWaitStrategy waitStrategy, OverflowFallback<? super T> overflowFallback) {
+        this.registrar = checkNotNull(registrar);
+        this.queueSupplier = checkNotNull(queueSupplier);
+        this.waitStrategy = checkNotNull(waitStrategy);
+        this.overflowFallback = checkNotNull(overflowFallback);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        BufferedEventSubscription<T> subscription =
+                new BufferedEventSubscription<>(subscriber, queueSupplier.get(), waitStrategy, overflowFallback);
+        subscriber.onSubscribe(subscription);
+        subscription.setRegistration(registrar.apply(subscription));
+    }
+
+    static final class BufferedEventSubscription<T> extends AbstractEventSink<T> implements QueueSubscription<T> {
+        private static final Disposable CANCELLED = () -> { };
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<BufferedEventSubscription> REQUESTED =
+                AtomicLongFieldUpdater.newUpdater(BufferedEventSubscription.class, "requested");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<BufferedEventSubscription> WIP =
+                AtomicIntegerFieldUpdater.newUpdater(BufferedEventSubscription.class, "wip");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<BufferedEventSubscription, Disposable> REGISTRATION =
+                AtomicReferenceFieldUpdater.newUpdater(BufferedEventSubscription.class, Disposable.class,
+                        "registration");
+
+        private final Subscriber<? super T> actual;
+        private final Queue<T> queue;
+        private final RingBufferWaitStrategy waitStrategy;
+        private final OverflowFallback<? super T> overflowFallback;
+        private final long blockingTimeoutNanos;
+        private final Object spaceLock = new Object();
+
+        private volatile long requested;
+        private volatile int wip;
+        private volatile Disposable registration;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile int waitingProducers;
+        private Throwable error;
+        private boolean outputFused;
+
+        BufferedEventSubscription(Subscriber<? super T> actual, Queue<T> queue, RingBufferWaitStrategy waitStrategy,
+                                  OverflowFallback<? super T> overflowFallback) {
+            this.actual = actual;
+            this.queue = queue;
+            this.waitStrategy = waitStrategy;
+            this.overflowFallback = overflowFallback;
+            this.blockingTimeoutNanos = waitStrategy instanceof BlockingWaitStrategy
+                    ? ((BlockingWaitStrategy) waitStrategy).timeoutNanos() : -1;
+        }
+
+        void setRegistration(Disposable registration) {
+            if (!REGISTRATION.compareAndSet(this, null, registration)) {
+                registration.dispose();
+            }
+        }
+
+        @Override
+        public void next(T event) {
+            if (done || cancelled) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                boolean buffered = blockingTimeoutNanos < 0 ? offerWaiting(event) : offerBlocking(event);
+                if (!buffered) {
+                    overflow(event);
+                    return;
+                }
+            }
+            drain();
+        }
+
+        private boolean offerWaiting(T event) {
+            int attempt = 0;
+            do {
+                drain();
+                if (done || cancelled) {
+                    return true;
+                }
+                if (!waitStrategy.await(attempt++)) {
+                    return false;
+                }
+            } while (!queue.offer(event));
+            return true;
+        }
+
+        /**
+         * Waits until the consumer frees space. The number of waiting producers is published before the queue is
+         * checked again, so a consumer that polls concurrently either frees space that the check sees or sees the
+         * waiting producer and signals it.
+         */
+        private boolean offerBlocking(T event) {
+            long deadline = System.nanoTime() + blockingTimeoutNanos;
+            for (;;) {
+                drain();
+                if (done || cancelled) {
+                    return true;
+                }
+                synchronized (spaceLock) {
+                    waitingProducers++;
+                    try {
+                        if (queue.offer(event)) {
+                            return true;
+                        }
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            return false;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(spaceLock, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    } finally {
+                        waitingProducers--;
+                    }
+                }
+            }
+        }
+
+        private void signalWaitingProducers() {
+            if (waitingProducers != 0) {
+                synchronized (spaceLock) {
+                    spaceLock.notifyAll();
+                }
+            }
+        }
+
+        private void overflow(T event) {
+            boolean handled;
+            try {
+                handled = overflowFallback.onOverflow(event);
+            } catch (RuntimeException e) {
+                error(e);
+                return;
+            }
+            if (!handled) {
+                error(Exceptions.failWithOverflow("The event buffer is full"));
+            }
+        }
+
+        @Override
+        public void error(Throwable e) {
+            if (done || cancelled) {
+                Operators.onErrorDropped(e);
+                return;
+            }
+            error = e;
+            done = true;
+            unregister();
+            terminated();
+            drain();
+        }
+
+        @Override
+        public void complete() {
+            if (done || cancelled) {
+                return;
+            }
+            done = true;
+            unregister();
+            terminated();
+            drain();
+        }
+
+        @Override
+        public long requestedFromDownstream() {
+            return requested;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.getAndAddCap(REQUESTED, this, n);
+                requested(n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            unregister();
+            cancelled();
+            if (!outputFused && WIP.getAndIncrement(this) == 0) {
+                discardQueue();
+            }
+            signalWaitingProducers();
+        }
+
+        private void unregister() {
+            Disposable current = REGISTRATION.getAndSet(this, CANCELLED);
+            if (current != null && current != CANCELLED) {
+                current.dispose();
+            }
+        }
+
+        private void drain() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            if (outputFused) {
+                drainFused();
+                return;
+            }
+
+            int missed = 1;
+            for (;;) {
+                long r = requested;
+                long e = 0L;
+
+                while (e != r) {
+                    if (cancelled) {
+                        discardQueue();
+                        return;
+                    }
+                    boolean d = done;
+                    T event = queue.poll();
+                    if (event == null) {
+                        if (d) {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    actual.onNext(event);
+                    e++;
+                }
+
+                if (e == r) {
+                    if (cancelled) {
+                        discardQueue();
+                        return;
+                    }
+                    if (done && queue.isEmpty()) {
+                        terminate();
+                        return;
+                    }
+                }
+
+                if (e != 0L) {
+                    Operators.produced(REQUESTED, this, e);
+                    signalWaitingProducers();
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Signals the fused subscriber that events are available, or that the flux terminated, and leaves polling the
+         * queue to it
+         */
+        private void drainFused() {
+            int missed = 1;
+            for (;;) {
+                if (cancelled) {
+                    return;
+                }
+                boolean d = done;
+                actual.onNext(null);
+                if (d) {
+                    signalWaitingProducers();
+                    Throwable ex = error;
+                    if (ex != null) {
+                        actual.onError(ex);
+                    } else {
+                        actual.onComplete();
+                    }
+                    return;
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public int requestFusion(int requestedMode) {
+            if ((requestedMode & ASYNC) != 0) {
+                outputFused = true;
+                return ASYNC;
+            }
+            return NONE;
+        }
+
+        @Override
+        public T poll() {
+            T event = queue.poll();
+            if (event != null) {
+                signalWaitingProducers();
+            }
+            return event;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public void clear() {
+            discardQueue();
+        }
+
+        /**
+         * Discards the pending events and releases the resources of the queue, such as spill files
+         */
+        private void discardQueue() {
+            queue.clear();
+            if (queue instanceof Closeable) {
+                try {
+                    ((Closeable) queue).close();
+                } catch (IOException e) {
+                    Operators.onErrorDropped(e);
+                }
+            }
+        }
+
+        private void terminate() {
+            discardQueue();
+            signalWaitingProducers();
+            Throwable ex = error;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A multi-producer single-consumer queue that keeps only the latest element of every key. Offering an element replaces
+ * the pending element of its key, if any, and otherwise marks the key as dirty. Polling returns the pending element of
+ * the key that became dirty first, so the queue holds at most one element per key and never returns a superseded one.
+ * @param <T> the type of the elements held in this queue
+ */
+final class ConflatingQueue<T> extends AbstractQueue<T> {
+    private static final Object NULL_KEY = new Object();
+
+    private final Function<? super T, ?> keyExtractor;
+    private final ConcurrentMap<Object, T> keyToLatest = new ConcurrentHashMap<>();
+    private final Queue<Object> dirtyKeys = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param keyExtractor extracts the key of an element, elements with a {@code null} key are conflated together
+     */
+    ConflatingQueue(Function<? super T, ?> keyExtractor) {
+        this.keyExtractor = checkNotNull(keyExtractor);
+    }
+
+    /**
+     * Offers an element, replacing the pending element of its key. The queue is never full.
+     * @param element the element to offer
+     * @return always {@code true}
+     */
+    @Override
+    public boolean offer(T element) {
+        checkNotNull(element);
+        Object key = keyExtractor.apply(element);
+        if (key == null) {
+            key = NULL_KEY;
+        }
+        if (keyToLatest.put(key, element) == null) {
+            dirtyKeys.offer(key);
+        }
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        Object key;
+        while ((key = dirtyKeys.poll()) != null) {
+            T element = keyToLatest.remove(key);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public T peek() {
+        Object key = dirtyKeys.peek();
+        return key == null ? null : keyToLatest.get(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return dirtyKeys.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return keyToLatest.size();
+    }
+
+    @Override
+    public void clear() {
+        dirtyKeys.clear();
+        keyToLatest.clear();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException("The conflating queue can not be iterated");
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link FluxSink} that is registered with the event bus only while its subscriber wants events. It can delay the
+ * registration until the first request and unregister itself once the subscriber has had no outstanding demand for an
+ * idle period, registering again on the next request. Events that are posted while it is not registered are not
+ * received. Its lifecycle callbacks are those of the downstream sink.
+ * @param <T> the type of the events
+ */
+final class DemandDrivenSink<T> extends AbstractEventSink<T> implements Disposable {
+    private final FluxSink<T> downstream;
+    private final Function<FluxSink<T>, Disposable> registrar;
+    private final long idleNanos;
+    private final Scheduler timer;
+
+    private Disposable registration;
+    private Disposable idleCheck;
+    private boolean disposed;
+    private volatile boolean idleCheckPending;
+
+    /**
+     * @param downstream the sink that receives the events
+     * @param registrar  registers the given sink with the event bus and returns a {@link Disposable} that unregisters
+     *                   it
+     * @param idleNanos  the idle period after which the sink is unregistered, or a negative value to stay registered
+     * @param timer      the scheduler of the idle checks
+     */
+    DemandDrivenSink(FluxSink<T> downstream, Function<FluxSink<T>, Disposable> registrar, long idleNanos,
+                     Scheduler timer) {
+        this.downstream = downstream;
+        this.registrar = registrar;
+        this.idleNanos = idleNanos;
+        this.timer = timer;
+    }
+
+    /**
+     * Registers the sink right away unless the registration is lazy, in which case it waits for {@link #request()}
+     * @param lazy whether the registration should wait for the first request
+     */
+    synchronized void start(boolean lazy) {
+        if (!lazy) {
+            register();
+            if (downstream.requestedFromDownstream() == 0) {
+                scheduleIdleCheck();
+            }
+        }
+    }
+
+    /**
+     * Called when the subscriber requests events, it registers the sink if needed and cancels any idle check
+     */
+    synchronized void request() {
+        cancelIdleCheck();
+        register();
+    }
+
+    @Override
+    public void next(T event) {
+        downstream.next(event);
+        if (idleNanos >= 0 && !idleCheckPending && downstream.requestedFromDownstream() == 0) {
+            synchronized (this) {
+                scheduleIdleCheck();
+            }
+        }
+    }
+
+    @Override
+    public void complete() {
+        downstream.complete();
+    }
+
+    @Override
+    public void error(Throwable e) {
+        downstream.error(e);
+    }
+
+    @Override
+    public long requestedFromDownstream() {
+        return downstream.requestedFromDownstream();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return downstream.isCancelled();
+    }
+
+    @Override
+    public FluxSink<T> onRequest(LongConsumer consumer) {
+        downstream.onRequest(consumer);
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onCancel(Disposable onCancel) {
+        downstream.onCancel(onCancel);
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onDispose(Disposable onDispose) {
+        downstream.onDispose(onDispose);
+        return this;
+    }
+
+    synchronized boolean isRegistered() {
+        return registration != null;
+    }
+
+    @Override
+    public synchronized void dispose() {
+        disposed = true;
+        cancelIdleCheck();
+        unregister();
+    }
+
+    @Override
+    public synchronized boolean isDisposed() {
+        return disposed;
+    }
+
+    private void register() {
+        if (!disposed && registration == null) {
+            registration = registrar.apply(this);
+        }
+    }
+
+    private void unregister() {
+        if (registration != null) {
+            registration.dispose();
+            registration = null;
+        }
+    }
+
+    private void scheduleIdleCheck() {
+        if (idleNanos < 0 || disposed || registration == null || idleCheck != null) {
+            return;
+        }
+        idleCheckPending = true;
+        idleCheck = timer.schedule(this::unregisterIfIdle, idleNanos, TimeUnit.NANOSECONDS)::dispose;
+    }
+
+    private void cancelIdleCheck() {
+        if (idleCheck != null) {
+            idleCheck.dispose();
+            idleCheck = null;
+            idleCheckPending = false;
+        }
+    }
+
+    private synchronized void unregisterIfIdle() {
+        idleCheck = null;
+        idleCheckPending = false;
+        if (downstream.requestedFromDownstream() == 0) {
+            unregister();
+        }
+    }
+}
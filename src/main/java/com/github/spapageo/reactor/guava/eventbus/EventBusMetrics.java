@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.function.LongSupplier;
+
+/**
+ * <p>
+ * Receives notifications about the activity of a {@link ReactorEventBusHelper}. All methods have empty default
+ * implementations, so implementations only override the notifications they are interested in. The methods are called on
+ * the hot path of posting and should not block.
+ * </p>
+ * <p>
+ * {@link #NOOP} is used when no metrics are configured, in which case the fluxes are not instrumented at all.
+ * {@link EventBusMetricsRecorder} is a low overhead implementation that keeps counters and latency histograms in memory.
+ * </p>
+ */
+public interface EventBusMetrics {
+    /**
+     * Metrics that ignore all notifications
+     */
+    EventBusMetrics NOOP = new EventBusMetrics() {
+    };
+
+    /**
+     * Called when the listener class of an event class has been created
+     * @param eventClass    the class of the events
+     * @param durationNanos the time it took to generate, or look up, the listener class
+     */
+    default void listenerCreated(Class<?> eventClass, long durationNanos) {
+    }
+
+    /**
+     * Called when a flux of the given event class is subscribed
+     * @param eventClass the class of the events
+     */
+    default void subscribed(Class<?> eventClass) {
+    }
+
+    /**
+     * Called when a flux of the given event class is disposed
+     * @param eventClass the class of the events
+     */
+    default void disposed(Class<?> eventClass) {
+    }
+
+    /**
+     * Called when the listener of a subscribed flux receives an event from the bus
+     * @param eventClass the class of the events of the flux
+     */
+    default void eventReceived(Class<?> eventClass) {
+    }
+
+    /**
+     * Called when a flux of the given event class is subscribed, with a gauge of the number of events that the flux
+     * has received but neither delivered nor discarded yet
+     * @param eventClass the class of the events
+     * @param queueDepth the queue depth gauge of the flux, which stays valid until {@link #queueRemoved} is called
+     */
+    default void queueAdded(Class<?> eventClass, LongSupplier queueDepth) {
+    }
+
+    /**
+     * Called when a flux of the given event class is disposed, with the gauge given to {@link #queueAdded}
+     * @param eventClass the class of the events
+     * @param queueDepth the queue depth gauge of the flux
+     */
+    default void queueRemoved(Class<?> eventClass, LongSupplier queueDepth) {
+    }
+
+    /**
+     * Called when the overflow strategy of a subscribed flux discards an event because the subscriber of the flux has
+     * no outstanding demand: the event is dropped, it replaces the latest undelivered event, which is discarded, or it
+     * fails the flux. Events that are buffered are not reported.
+     * @param eventClass       the class of the events of the flux
+     * @param overflowStrategy the overflow strategy of the flux
+     */
+    default void eventOverflowed(Class<?> eventClass, OverflowStrategy overflowStrategy) {
+    }
+
+    /**
+     * Called when an event is delivered to the subscriber of a flux
+     * @param eventClass   the class of the events of the flux
+     * @param latencyNanos the time between the reception of the event from the bus and its delivery
+     */
+    default void eventDelivered(Class<?> eventClass, long latencyNanos) {
+    }
+
+    /**
+     * When the metrics do not record latencies the received events are not time-stamped, which saves an allocation
+     * per event, and {@link #eventDelivered(Class, long)} is called with a latency of {@code 0}
+     * @return whether the latency of the delivered events is recorded
+     */
+    default boolean recordsLatency() {
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An {@link EventBusMetrics} that keeps per event class metrics in memory. Counters are {@link LongAdder}s, so that
+ * concurrent posting threads do not contend on them, and latencies are recorded in log-linear histograms. The queue
+ * depth gauges of the subscribed fluxes are read when a snapshot is taken. The metrics do not keep the event classes
+ * reachable.
+ */
+public final class EventBusMetricsRecorder implements EventBusMetrics {
+    private final ConcurrentMap<Class<?>, EventClassMetrics> eventClassToMetrics = new MapMaker().weakKeys().makeMap();
+
+    @Override
+    public void listenerCreated(Class<?> eventClass, long durationNanos) {
+        EventClassMetrics metrics = metricsOf(eventClass);
+        metrics.listenerCreations.increment();
+        metrics.listenerCreationNanos.add(durationNanos);
+    }
+
+    @Override
+    public void subscribed(Class<?> eventClass) {
+        metricsOf(eventClass).subscriptions.increment();
+    }
+
+    @Override
+    public void disposed(Class<?> eventClass) {
+        metricsOf(eventClass).subscriptions.decrement();
+    }
+
+    @Override
+    public void queueAdded(Class<?> eventClass, LongSupplier queueDepth) {
+        metricsOf(eventClass).queueDepths.add(queueDepth);
+    }
+
+    @Override
+    public void queueRemoved(Class<?> eventClass, LongSupplier queueDepth) {
+        metricsOf(eventClass).queueDepths.remove(queueDepth);
+    }
+
+    @Override
+    public void eventReceived(Class<?> eventClass) {
+        metricsOf(eventClass).received.increment();
+    }
+
+    @Override
+    public void eventOverflowed(Class<?> eventClass, OverflowStrategy overflowStrategy) {
+        metricsOf(eventClass).overflowed.increment();
+    }
+
+    @Override
+    public void eventDelivered(Class<?> eventClass, long latencyNanos) {
+        EventClassMetrics metrics = metricsOf(eventClass);
+        metrics.delivered.increment();
+        metrics.latencyNanos.record(latencyNanos);
+    }
+
+    /**
+     * @param eventClass the class of the events
+     * @return the metrics of the given event class
+     */
+    public EventMetricsSnapshot snapshot(Class<?> eventClass) {
+        return metricsOf(eventClass).snapshot();
+    }
+
+    /**
+     * @return the metrics of all the event classes that have been recorded
+     */
+    public Map<Class<?>, EventMetricsSnapshot> snapshots() {
+        ImmutableMap.Builder<Class<?>, EventMetricsSnapshot> snapshots = ImmutableMap.builder();
+        eventClassToMetrics.forEach((eventClass, metrics) -> snapshots.put(eventClass, metrics.snapshot()));
+        return snapshots.build();
+    }
+
+    private EventClassMetrics metricsOf(Class<?> eventClass) {
+        EventClassMetrics metrics = eventClassToMetrics.get(eventClass);
+        if (metrics == null) {
+            metrics = eventClassToMetrics.computeIfAbsent(eventClass, clazz -> new EventClassMetrics());
+        }
+        return metrics;
+    }
+
+    private static final class EventClassMetrics {
+        private final LongAdder listenerCreations = new LongAdder();
+        private final LongAdder listenerCreationNanos = new LongAdder();
+        private final LongAdder subscriptions = new LongAdder();
+        private final LongAdder received = new LongAdder();
+        private final LongAdder overflowed = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LatencyHistogram latencyNanos = new LatencyHistogram();
+        private final Set<LongSupplier> queueDepths = ConcurrentHashMap.newKeySet();
+
+        private EventMetricsSnapshot snapshot() {
+            ImmutableList.Builder<Long> depths = ImmutableList.builder();
+            for (LongSupplier queueDepth : queueDepths) {
+                depths.add(Math.max(0, queueDepth.getAsLong()));
+            }
+            return new EventMetricsSnapshot(listenerCreations.sum(), listenerCreationNanos.sum(), subscriptions.sum(),
+                    received.sum(), overflowed.sum(), delivered.sum(), depths.build(), latencyNanos.snapshot());
+        }
+    }
+}
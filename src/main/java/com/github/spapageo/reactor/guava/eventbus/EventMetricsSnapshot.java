@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.List;
+
+/**
+ * The metrics of an event class recorded by an {@link EventBusMetricsRecorder} at some point in time
+ */
+public final class EventMetricsSnapshot {
+    private final long listenerCreations;
+    private final long listenerCreationNanos;
+    private final long activeSubscriptions;
+    private final long receivedCount;
+    private final long overflowCount;
+    private final long deliveredCount;
+    private final List<Long> queueDepths;
+    private final LatencyHistogram.Snapshot latencyNanos;
+
+    EventMetricsSnapshot(long listenerCreations, long listenerCreationNanos, long activeSubscriptions,
+                         long receivedCount, long overflowCount, long deliveredCount, List<Long> queueDepths,
+                         LatencyHistogram.Snapshot latencyNanos) {
+        this.listenerCreations = listenerCreations;
+        this.listenerCreationNanos = listenerCreationNanos;
+        this.activeSubscriptions = activeSubscriptions;
+        this.receivedCount = receivedCount;
+        this.overflowCount = overflowCount;
+        this.deliveredCount = deliveredCount;
+        this.queueDepths = queueDepths;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /**
+     * @return the number of times the listener class of the event class was created
+     */
+    public long listenerCreations() {
+        return listenerCreations;
+    }
+
+    /**
+     * @return the total time spent creating the listener class of the event class
+     */
+    public long listenerCreationNanos() {
+        return listenerCreationNanos;
+    }
+
+    /**
+     * @return the number of fluxes of the event class that are currently subscribed
+     */
+    public long activeSubscriptions() {
+        return activeSubscriptions;
+    }
+
+    /**
+     * @return the total number of events received by the listeners of the subscribed fluxes
+     */
+    public long receivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * @return the total number of events discarded by the overflow strategy of the fluxes because their subscriber had
+     * no outstanding demand
+     */
+    public long overflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     * @return the total number of events delivered to the subscribers of the fluxes
+     */
+    public long deliveredCount() {
+        return deliveredCount;
+    }
+
+    /**
+     * @return the number of received events that have not been delivered yet, which includes the events buffered by
+     * the fluxes and the events discarded by their overflow strategy
+     * @see #queueDepths()
+     */
+    public long pendingCount() {
+        return Math.max(0, receivedCount - deliveredCount);
+    }
+
+    /**
+     * @return the number of events buffered by each subscribed flux, that is the events it has received but neither
+     * delivered nor discarded, in no particular order
+     */
+    public List<Long> queueDepths() {
+        return queueDepths;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the time between the reception and the delivery of events at the given percentile, with a precision of
+     * about 3%
+     */
+    public long latencyNanosAtPercentile(double percentile) {
+        return latencyNanos.valueAtPercentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("listenerCreations", listenerCreations)
+                .add("listenerCreationNanos", listenerCreationNanos)
+                .add("activeSubscriptions", activeSubscriptions)
+                .add("receivedCount", receivedCount)
+                .add("overflowCount", overflowCount)
+                .add("deliveredCount", deliveredCount)
+                .add("queueDepths", queueDepths)
+                .add("p50LatencyNanos", latencyNanosAtPercentile(50))
+                .add("p99LatencyNanos", latencyNanosAtPercentile(99))
+                .toString();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+
+/**
+ * A subscriber registered with a {@link ReactorEventBus}. Subscribers that do not allow concurrent events are invoked
+ * while holding their own lock, like the subscribers of guava {@link com.google.common.eventbus.EventBus}.
+ */
+final class EventSubscriber {
+    private final Object target;
+    private final Method method;
+    private final BiConsumer<Object, Object> invoker;
+    private final boolean concurrent;
+
+    EventSubscriber(Object target, SubscriberMethod subscriberMethod) {
+        this(target, subscriberMethod.method(), subscriberMethod.invoker(), subscriberMethod.isConcurrent());
+    }
+
+    EventSubscriber(Object target, Method method, BiConsumer<Object, Object> invoker, boolean concurrent) {
+        this.target = target;
+        this.method = method;
+        this.invoker = invoker;
+        this.concurrent = concurrent;
+    }
+
+    void dispatch(Object event, ReactorEventBus.ExceptionHandler exceptionHandler) {
+        try {
+            if (concurrent) {
+                invoker.accept(target, event);
+            } else {
+                synchronized (this) {
+                    invoker.accept(target, event);
+                }
+            }
+        } catch (Exception e) {
+            exceptionHandler.handleException(e, event, target, method);
+        }
+    }
+
+    Object target() {
+        return target;
+    }
+
+    Method method() {
+        return method;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof EventSubscriber)) {
+            return false;
+        }
+        EventSubscriber that = (EventSubscriber) obj;
+        return target == that.target && (method == null ? that.method == null : method.equals(that.method));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(target) + (method == null ? 0 : method.hashCode());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.publisher.FluxSink;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A generated {@link ReactorCacheListener} sub-class together with the {@link ListenerConstructor} that instantiates it
+ * @param <T> the type of events that the generated listener listens for
+ */
+final class GeneratedListener<T> {
+    private final Class<? extends ReactorCacheListener<T>> listenerClass;
+    private final ListenerConstructor<T> listenerConstructor;
+
+    GeneratedListener(Class<? extends ReactorCacheListener<T>> listenerClass,
+                      ListenerConstructor<T> listenerConstructor) {
+        this.listenerClass = checkNotNull(listenerClass);
+        this.listenerConstructor = checkNotNull(listenerConstructor);
+    }
+
+    Class<? extends ReactorCacheListener<T>> listenerClass() {
+        return listenerClass;
+    }
+
+    /**
+     * Instantiates the generated listener giving {@link FluxSink} as its single argument
+     * @param fluxSink the sink that will receive the events
+     * @return the {@link ReactorCacheListener} instance
+     */
+    ReactorCacheListener<T> newInstance(FluxSink<T> fluxSink) {
+        return listenerConstructor.newInstance(fluxSink);
+    }
+}
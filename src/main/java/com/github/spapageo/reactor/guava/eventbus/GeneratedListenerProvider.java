@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+/**
+ * <p>
+ * A service provider of listener classes that were generated at compile time for the event types declared with
+ * {@link GenerateListeners}. Implementations are emitted by the {@code reactor-guava-eventbus-processor} annotation
+ * processor and discovered through {@link java.util.ServiceLoader}.
+ * </p>
+ * <p>
+ * This interface is not intended to be implemented by hand.
+ * </p>
+ */
+public interface GeneratedListenerProvider {
+
+    /**
+     * Registers all the listeners that this provider contains
+     * @param registrar the registrar that receives the listeners
+     */
+    void registerListeners(Registrar registrar);
+
+    /**
+     * Receives the listeners of a {@link GeneratedListenerProvider}
+     */
+    interface Registrar {
+
+        /**
+         * Registers the listener class of an event type
+         * @param eventClass the type of event that the listener class handles
+         * @param listenerClass the listener class
+         * @param listenerConstructor creates instances of the listener class
+         * @param <T> the type of the event
+         */
+        <T> void register(Class<T> eventClass, Class<? extends ReactorCacheListener<T>> listenerClass,
+                          ListenerConstructor<T> listenerConstructor);
+    }
+}
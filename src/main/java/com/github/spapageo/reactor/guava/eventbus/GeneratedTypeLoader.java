@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.loading.MultipleParentClassLoader;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the classes that this library generates at runtime in class loaders that can see both this library and the
+ * user classes that the generated classes refer to, without pinning foreign class loaders.
+ */
+final class GeneratedTypeLoader {
+    private static final ClassLoader LIBRARY_CLASS_LOADER = GeneratedTypeLoader.class.getClassLoader();
+
+    private GeneratedTypeLoader() {
+    }
+
+    /**
+     * Selects the class loader that a class generated for the given user class will be defined in or be a child of.
+     * That is the class loader of this library if it can see the user class, the class loader of the user class if it
+     * can see this library or else a class loader that delegates to both of them.
+     * @param userClass the user class that the generated class refers to
+     * @return the selected class loader
+     */
+    static ClassLoader classLoaderFor(Class<?> userClass) {
+        return classLoaderFor(Collections.singletonList(userClass));
+    }
+
+    /**
+     * Selects the class loader that a class generated for the given user classes will be defined in or be a child of.
+     * That is the class loader of this library if it can see all the user classes, the class loader of one of the user
+     * classes if it can see this library and all the user classes or else a class loader that delegates to all of them.
+     * @param userClasses the user classes that the generated class refers to
+     * @return the selected class loader
+     */
+    static ClassLoader classLoaderFor(List<? extends Class<?>> userClasses) {
+        if (allVisible(userClasses, LIBRARY_CLASS_LOADER)) {
+            return LIBRARY_CLASS_LOADER;
+        }
+        for (Class<?> userClass : userClasses) {
+            ClassLoader userClassLoader = userClass.getClassLoader();
+            if (isVisible(GeneratedTypeLoader.class, userClassLoader) && allVisible(userClasses, userClassLoader)) {
+                return userClassLoader;
+            }
+        }
+        MultipleParentClassLoader.Builder builder = new MultipleParentClassLoader.Builder();
+        for (Class<?> userClass : userClasses) {
+            if (userClass.getClassLoader() != null) {
+                builder = builder.append(userClass.getClassLoader());
+            }
+        }
+        return builder.append(LIBRARY_CLASS_LOADER).build();
+    }
+
+    /**
+     * Defines the generated type in a new child class loader of {@code classLoader}, even when that is the class loader
+     * of this library. The type is not injected into an existing class loader, because class injection through
+     * reflection is not available on recent Java versions, and so that a discarded type is unloaded together with its
+     * class loader instead of accumulating in a long-lived one.
+     * @param type the generated type
+     * @param classLoader the class loader selected by {@link #classLoaderFor(Class)}
+     * @return the loaded class
+     */
+    static <T> Class<? extends T> load(DynamicType.Unloaded<T> type, ClassLoader classLoader) {
+        return type.load(classLoader, ClassLoadingStrategy.Default.WRAPPER).getLoaded();
+    }
+
+    private static boolean allVisible(List<? extends Class<?>> types, ClassLoader classLoader) {
+        for (Class<?> type : types) {
+            if (!isVisible(type, classLoader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> type, ClassLoader classLoader) {
+        try {
+            return Class.forName(type.getName(), false, classLoader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link FluxSink} given to the listener of an instrumented flux. It reports every event the listener receives to
+ * the {@link EventBusMetrics}, together with the events that the overflow strategy of the flux discards, and keeps the
+ * queue depth of the flux. When the metrics record latencies it also stamps every event with its reception time, so
+ * that its latency can be recorded when it is finally delivered downstream by {@link #deliver}. Its lifecycle callbacks
+ * are those of the downstream sink.
+ * @param <T> the type of the events
+ */
+final class InstrumentedFluxSink<T> extends AbstractEventSink<T> {
+    private final Class<T> eventClass;
+    private final FluxSink<Object> downstream;
+    private final OverflowStrategy overflowStrategy;
+    private final EventBusMetrics metrics;
+    private final AtomicLong queueDepth;
+    private final boolean timed;
+
+    /**
+     * @param eventClass       the class of the events
+     * @param downstream       the sink that receives the events, or their {@link TimedEvent}s when the metrics record
+     *                         latencies
+     * @param overflowStrategy the overflow strategy of the downstream sink
+     * @param metrics          the metrics to report to
+     * @param queueDepth       the number of events received but neither delivered nor discarded, which is decremented
+     *                         by {@link #deliver}
+     */
+    InstrumentedFluxSink(Class<T> eventClass, FluxSink<Object> downstream, OverflowStrategy overflowStrategy,
+                         EventBusMetrics metrics, AtomicLong queueDepth) {
+        this.eventClass = eventClass;
+        this.downstream = downstream;
+        this.overflowStrategy = overflowStrategy;
+        this.metrics = metrics;
+        this.queueDepth = queueDepth;
+        this.timed = metrics.recordsLatency();
+    }
+
+    @Override
+    public void next(T event) {
+        metrics.eventReceived(eventClass);
+        if (downstream.requestedFromDownstream() > 0 || !discardsOnOverflow()) {
+            queueDepth.incrementAndGet();
+        }
+        downstream.next(timed ? new TimedEvent<>(event, System.nanoTime()) : event);
+    }
+
+    /**
+     * Decides whether the overflow strategy discards an event that is received while there is no outstanding demand.
+     * The latest strategy discards the undelivered event that it already holds, if any, in favour of the new one.
+     */
+    private boolean discardsOnOverflow() {
+        switch (overflowStrategy) {
+            case DROP:
+            case ERROR:
+                metrics.eventOverflowed(eventClass, overflowStrategy);
+                return true;
+            case LATEST:
+                if (queueDepth.get() > 0) {
+                    metrics.eventOverflowed(eventClass, overflowStrategy);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void complete() {
+        downstream.complete();
+    }
+
+    @Override
+    public void error(Throwable e) {
+        downstream.error(e);
+    }
+
+    @Override
+    public long requestedFromDownstream() {
+        return downstream.requestedFromDownstream();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return downstream.isCancelled();
+    }
+
+    @Override
+    public FluxSink<T> onRequest(LongConsumer consumer) {
+        downstream.onRequest(consumer);
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onCancel(Disposable onCancel) {
+        downstream.onCancel(onCancel);
+        return this;
+    }
+
+    @Override
+    public FluxSink<T> onDispose(Disposable onDispose) {
+        downstream.onDispose(onDispose);
+        return this;
+    }
+
+    /**
+     * Records the delivery of an event that was given to the downstream sink
+     * @param received   the event or its {@link TimedEvent}
+     * @param eventClass the class of the events
+     * @param metrics    the metrics to report to
+     * @param queueDepth the queue depth of the flux
+     * @return the event
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T deliver(Object received, Class<T> eventClass, EventBusMetrics metrics, AtomicLong queueDepth) {
+        queueDepth.decrementAndGet();
+        if (received instanceof TimedEvent) {
+            return ((TimedEvent<T>) received).deliver(eventClass, metrics);
+        }
+        metrics.eventDelivered(eventClass, 0);
+        return (T) received;
+    }
+
+    /**
+     * An event together with the time it was received from the bus
+     * @param <T> the type of the event
+     */
+    static final class TimedEvent<T> {
+        private final T event;
+        private final long receivedNanos;
+
+        TimedEvent(T event, long receivedNanos) {
+            this.event = event;
+            this.receivedNanos = receivedNanos;
+        }
+
+        /**
+         * Records the delivery of the event
+         * @return the event
+         */
+        T deliver(Class<?> eventClass, EventBusMetrics metrics) {
+            metrics.eventDelivered(eventClass, System.nanoTime() - receivedNanos);
+            return event;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.publisher.FluxSink;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A {@link FluxSink} that routes every event only to the subscriber sinks of its key. The key of the event is computed
+ * once and the subscribers of the key are found with a single hash lookup, so routing does not depend on the number of
+ * subscribers of other keys.
+ * @param <T> the type of events that this sink routes
+ * @param <K> the type of the keys
+ */
+final class KeyedFluxSink<T, K> extends AbstractEventSink<T> {
+    private static final int TERMINATED = -1;
+
+    private final Function<? super T, ? extends K> keyExtractor;
+    private final ConcurrentMap<K, MulticastFluxSink<T>> keyToSinks = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    KeyedFluxSink(Function<? super T, ? extends K> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * Adds a subscriber sink for the given key
+     * @param key  the key of the events the sink is interested in
+     * @param sink the sink to add
+     * @return {@code false} if this sink has already been terminated because its last subscriber was removed
+     */
+    boolean add(K key, FluxSink<T> sink) {
+        for (;;) {
+            int count = subscriberCount.get();
+            if (count == TERMINATED) {
+                return false;
+            }
+            if (subscriberCount.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        for (;;) {
+            MulticastFluxSink<T> sinks = keyToSinks.computeIfAbsent(key, k -> new MulticastFluxSink<>());
+            if (sinks.add(sink)) {
+                return true;
+            }
+            // The sinks of the key were terminated concurrently by their last subscriber
+            keyToSinks.remove(key, sinks);
+        }
+    }
+
+    /**
+     * Removes a subscriber sink of the given key. Removing the last subscriber of all keys cancels this sink.
+     * @param key  the key of the events the sink is interested in
+     * @param sink the sink to remove, which must have been added with the same key
+     * @return {@code true} if the removed sink was the last one and this sink is now terminated
+     */
+    boolean remove(K key, FluxSink<T> sink) {
+        MulticastFluxSink<T> sinks = keyToSinks.get(key);
+        if (sinks == null) {
+            return false;
+        }
+        if (sinks.remove(sink)) {
+            keyToSinks.remove(key, sinks);
+        }
+        if (subscriberCount.decrementAndGet() == 0 && subscriberCount.compareAndSet(0, TERMINATED)) {
+            cancelled();
+            return true;
+        }
+        return false;
+    }
+
+    int subscriberCount() {
+        return Math.max(0, subscriberCount.get());
+    }
+
+    int keyCount() {
+        return keyToSinks.size();
+    }
+
+    @Override
+    public void next(T event) {
+        K key = keyExtractor.apply(event);
+        if (key == null) {
+            return;
+        }
+        MulticastFluxSink<T> sinks = keyToSinks.get(key);
+        if (sinks != null) {
+            sinks.next(event);
+        }
+    }
+
+    @Override
+    public void complete() {
+        for (MulticastFluxSink<T> sinks : keyToSinks.values()) {
+            sinks.complete();
+        }
+        terminated();
+    }
+
+    @Override
+    public void error(Throwable e) {
+        for (MulticastFluxSink<T> sinks : keyToSinks.values()) {
+            sinks.error(e);
+        }
+        terminated();
+    }
+
+    @Override
+    public long requestedFromDownstream() {
+        long requested = 0;
+        for (MulticastFluxSink<T> sinks : keyToSinks.values()) {
+            requested = Math.max(requested, sinks.requestedFromDownstream());
+        }
+        return requested;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return subscriberCount.get() == TERMINATED;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps a single {@link ReactorCacheListener} registered with the {@link EventBus} per event class and key extractor
+ * and routes the events it receives to the {@link FluxSink}s subscribed to their key through a {@link KeyedFluxSink}.
+ * The listener is registered when the first subscriber arrives and unregistered when the last one leaves.
+ * <p>
+ * Key extractors are compared with {@link Object#equals(Object)}, so subscribers share a registration only when they
+ * use the same key extractor instance, for example a constant or a method reference to a static method.
+ * </p>
+ */
+class KeyedListenerRegistry {
+    private final EventBus eventBus;
+    private final ListenerFactory listenerFactory;
+
+    private final Map<List<Object>, Entry<?, ?>> registrationToEntry = new ConcurrentHashMap<>();
+
+    KeyedListenerRegistry(EventBus eventBus, ListenerFactory listenerFactory) {
+        this.eventBus = checkNotNull(eventBus);
+        this.listenerFactory = checkNotNull(listenerFactory);
+    }
+
+    /**
+     * Adds the given sink to the subscribers of the events of {@code eventClass} whose key is {@code key}, registering
+     * a listener with the {@link EventBus} if this is the first subscriber of the event class and key extractor.
+     * @param eventClass   the class of the events the sink is interested in
+     * @param keyExtractor the function that extracts the key of an event
+     * @param key          the key of the events the sink is interested in
+     * @param fluxSink     the sink that will receive the events
+     * @param <T>          the type of the event
+     * @param <K>          the type of the key
+     */
+    <T, K> void subscribe(Class<T> eventClass, Function<? super T, ? extends K> keyExtractor, K key,
+                          FluxSink<T> fluxSink) {
+        List<Object> registration = Arrays.asList(eventClass, keyExtractor);
+        for (;;) {
+            Entry<T, K> entry = entryFor(registration, eventClass, keyExtractor);
+            if (entry.keyedSink.add(key, fluxSink)) {
+                return;
+            }
+            // The entry was terminated concurrently by its last subscriber, remove it so that a new one is created
+            registrationToEntry.remove(registration, entry);
+        }
+    }
+
+    /**
+     * Removes the given sink from the subscribers of {@code key}, unregistering the listener from the {@link EventBus}
+     * if this was the last subscriber of the event class and key extractor.
+     * @param eventClass   the class of the events the sink is interested in
+     * @param keyExtractor the function that extracts the key of an event
+     * @param key          the key of the events the sink is interested in
+     * @param fluxSink     the sink that will no longer receive events
+     * @param <T>          the type of the event
+     * @param <K>          the type of the key
+     */
+    @SuppressWarnings("unchecked")
+    <T, K> void unsubscribe(Class<T> eventClass, Function<? super T, ? extends K> keyExtractor, K key,
+                            FluxSink<T> fluxSink) {
+        List<Object> registration = Arrays.asList(eventClass, keyExtractor);
+        Entry<T, K> entry = (Entry<T, K>) registrationToEntry.get(registration);
+        if (entry != null && entry.keyedSink.remove(key, fluxSink)) {
+            registrationToEntry.remove(registration, entry);
+            eventBus.unregister(entry.listener);
+        }
+    }
+
+    int registrationCount() {
+        return registrationToEntry.size();
+    }
+
+    int subscriberCount(Class<?> eventClass, Function<?, ?> keyExtractor) {
+        Entry<?, ?> entry = registrationToEntry.get(Arrays.asList(eventClass, keyExtractor));
+        return entry == null ? 0 : entry.keyedSink.subscriberCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, K> Entry<T, K> entryFor(List<Object> registration, Class<T> eventClass,
+                                        Function<? super T, ? extends K> keyExtractor) {
+        return (Entry<T, K>) registrationToEntry.computeIfAbsent(registration, r -> {
+            KeyedFluxSink<T, K> keyedSink = new KeyedFluxSink<>(keyExtractor);
+            ReactorCacheListener<T> listener = listenerFactory.generateListener(eventClass).newInstance(keyedSink);
+            eventBus.register(listener);
+            return new Entry<>(keyedSink, listener);
+        });
+    }
+
+    private static final class Entry<T, K> {
+        private final KeyedFluxSink<T, K> keyedSink;
+        private final ReactorCacheListener<T> listener;
+
+        private Entry(KeyedFluxSink<T, K> keyedSink, ReactorCacheListener<T> listener) {
+            this.keyedSink = keyedSink;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Statistics about the listener classes that a {@link ReactorEventBusHelper} has generated and cached
+ */
+public final class ListenerCacheStats {
+    private final long cachedCount;
+    private final long generatedCount;
+    private final long evictionCount;
+
+    ListenerCacheStats(long cachedCount, long generatedCount, long evictionCount) {
+        this.cachedCount = cachedCount;
+        this.generatedCount = generatedCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * @return the number of event classes that currently have a cached listener class
+     */
+    public long cachedCount() {
+        return cachedCount;
+    }
+
+    /**
+     * @return the total number of listener classes that have been generated at runtime
+     */
+    public long generatedCount() {
+        return generatedCount;
+    }
+
+    /**
+     * @return the total number of listener classes that have been explicitly evicted from the cache
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("cachedCount", cachedCount)
+                .add("generatedCount", generatedCount)
+                .add("evictionCount", evictionCount)
+                .toString();
+    }
+}
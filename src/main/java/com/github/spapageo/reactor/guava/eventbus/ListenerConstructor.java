@@ -0,0 +1,47 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Creates instances of a generated {@link ReactorCacheListener} sub-class. Implementations are generated by
+ * {@link ListenerFactory} and invoke the listener constructor directly, so creating a listener costs the same as a
+ * plain {@code new}.
+ * <p>
+ * This interface is not part of the public API. It is public only so that constructors generated in class loaders
+ * other than the one of this library can implement it.
+ * </p>
+ * @param <T> the type of events that the created listeners listen for
+ */
+@FunctionalInterface
+public interface ListenerConstructor<T> {
+
+    /**
+     * Creates a new listener that forwards all events to the given {@link FluxSink}
+     * @param fluxSink the sink that will receive the events
+     * @return the created listener
+     */
+    ReactorCacheListener<T> newInstance(FluxSink<T> fluxSink);
+}
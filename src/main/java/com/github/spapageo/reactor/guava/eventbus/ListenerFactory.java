@@ -24,67 +24,252 @@
 package com.github.spapageo.reactor.guava.eventbus;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import net.bytebuddy.ByteBuddy;
-import net.bytebuddy.implementation.MethodDelegation;
-import net.bytebuddy.implementation.bind.annotation.Argument;
-import net.bytebuddy.implementation.bind.annotation.This;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.MethodCall;
 import reactor.core.publisher.FluxSink;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static net.bytebuddy.matcher.ElementMatchers.named;
 
 /**
  * Uses bytecode generation to dynamically create sub-classes of {@link ReactorCacheListener} with a method properly
  * annotated with {@link Subscribe} and {@link AllowConcurrentEvents}
+ * <p>
+ * Every generated listener is defined in a dedicated child of a class loader that can see both the event class and
+ * this library, so that an evicted listener is unloaded together with its class loader and can be generated again
+ * without accumulating classes in a long-lived class loader. The cache is keyed by the event class through a
+ * {@link ClassValue} and therefore does not keep event classes, or their class loaders, reachable. The listeners of
+ * several event types are cached by their first event type and only weakly, so that they do not keep the other event
+ * types reachable either once no flux uses them.
+ * </p>
+ * <p>
+ * Listeners that were generated at compile time through {@link GenerateListeners} are discovered with
+ * {@link ServiceLoader} and take precedence over runtime generation, which is used only for the remaining event types.
+ * They are attached to their event class through a {@link ClassValue} as well, so they do not keep it reachable.
+ * </p>
  */
 class ListenerFactory {
     private static final ImmutableList<Annotation> LISTENER_ANNOTATIONS
             = ImmutableList.of(new SubscribeImpl(), new AllowConcurrentEventsImpl());
+    private static final Method FLUX_SINK_NEXT = fluxSinkNext();
+    @SuppressWarnings("unchecked")
+    private static final Class<ReactorCacheListener<?>> LISTENER_TYPE =
+            (Class<ReactorCacheListener<?>>) (Class<?>) ReactorCacheListener.class;
 
-    private final Map<Class<?>, Class<? extends ReactorCacheListener>> eventClassToListener =
-            new ConcurrentHashMap<>();
+    private final ClassValue<GeneratedListener<?>> eventClassToListener = new ClassValue<GeneratedListener<?>>() {
+        @Override
+        protected GeneratedListener<?> computeValue(Class<?> eventClass) {
+            long start = System.nanoTime();
+            GeneratedListener<?> generatedListener = pregeneratedListeners.get(eventClass);
+            if (generatedListener == null) {
+                generatedListener = generate(eventClass);
+                generatedCount.increment();
+            }
+            cachedEventClasses.put(eventClass, Boolean.TRUE);
+            metrics.listenerCreated(eventClass, System.nanoTime() - start);
+            return generatedListener;
+        }
+    };
+    private final ClassValue<ConcurrentMap<List<Class<?>>, GeneratedListener<?>>> multiTypeListeners
+            = new ClassValue<ConcurrentMap<List<Class<?>>, GeneratedListener<?>>>() {
+        @Override
+        protected ConcurrentMap<List<Class<?>>, GeneratedListener<?>> computeValue(Class<?> firstEventClass) {
+            return new MapMaker().weakValues().makeMap();
+        }
+    };
+    private final Map<Class<?>, GeneratedListener<?>> stagedListeners = new HashMap<>();
+    private final ClassValue<GeneratedListener<?>> pregeneratedListeners = new ClassValue<GeneratedListener<?>>() {
+        @Override
+        protected GeneratedListener<?> computeValue(Class<?> eventClass) {
+            return stagedListeners.remove(eventClass);
+        }
+    };
+    private final ConcurrentMap<Class<?>, Boolean> cachedEventClasses = new MapMaker().weakKeys().makeMap();
+    private final LongAdder generatedCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final EventBusMetrics metrics;
+
+    ListenerFactory() {
+        this(ServiceLoader.load(GeneratedListenerProvider.class));
+    }
+
+    ListenerFactory(Iterable<? extends GeneratedListenerProvider> listenerProviders) {
+        this(listenerProviders, EventBusMetrics.NOOP);
+    }
+
+    ListenerFactory(Iterable<? extends GeneratedListenerProvider> listenerProviders, EventBusMetrics metrics) {
+        GeneratedListenerProvider.Registrar registrar = new GeneratedListenerProvider.Registrar() {
+            @Override
+            public <T> void register(Class<T> eventClass, Class<? extends ReactorCacheListener<T>> listenerClass,
+                                     ListenerConstructor<T> listenerConstructor) {
+                stagedListeners.put(eventClass, new GeneratedListener<>(listenerClass, listenerConstructor));
+            }
+        };
+        for (GeneratedListenerProvider listenerProvider : listenerProviders) {
+            listenerProvider.registerListeners(registrar);
+        }
+        // Moves the staged listeners onto their event classes so that this factory does not reference them
+        for (Class<?> eventClass : ImmutableList.copyOf(stagedListeners.keySet())) {
+            pregeneratedListeners.get(eventClass);
+        }
+        this.metrics = metrics;
+    }
 
     /**
-     * Instantiates a {@link ReactorCacheListener} giving {@link FluxSink} as its single argument
-     * @param fluxSink the only argument the invoked constructor
-     * @param listenerClass the class that will be instantiated
-     * @return the {@link ReactorCacheListener} instance
+     * Returns the generated {@link ReactorCacheListener} sub-class for the given event type together with a generated
+     * {@link ListenerConstructor} for it. Both are generated once per event type, unless they were generated at compile
+     * time, and cached until the event class is collected or {@link #evict(Class)} is called.
+     * @param eventClass the type of event that should be handled by the generated {@link ReactorCacheListener}
+     * @return the generated listener
      */
-    <T> ReactorCacheListener<T> instantiatedListener(FluxSink<T> fluxSink,
-                                              Class<? extends ReactorCacheListener<T>> listenerClass) {
-        try {
-            return listenerClass.getConstructor(FluxSink.class).newInstance(fluxSink);
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-            throw new IllegalArgumentException("Unable to instantiate a listener for the given argument type", e);
+    @SuppressWarnings("unchecked")
+    <T> GeneratedListener<T> generateListener(Class<T> eventClass) {
+        return (GeneratedListener<T>) eventClassToListener.get(eventClass);
+    }
+
+    /**
+     * Returns a generated {@link ReactorCacheListener} sub-class with one subscriber method for each of the given event
+     * types, all of them feeding the same {@link FluxSink}, together with a generated {@link ListenerConstructor} for
+     * it. Both are generated once per list of event types and cached until the first event class of the list is
+     * collected or evicted, or until the returned listener is no longer referenced.
+     * @param eventClasses the types of events that should be handled by the generated {@link ReactorCacheListener}
+     * @return the generated listener
+     */
+    @SuppressWarnings("unchecked")
+    <T> GeneratedListener<T> generateListener(List<? extends Class<? extends T>> eventClasses) {
+        checkArgument(!eventClasses.isEmpty(), "At least one event class is required");
+        if (eventClasses.size() == 1) {
+            return (GeneratedListener<T>) generateListener(eventClasses.get(0));
         }
+        List<Class<?>> key = ImmutableList.copyOf(eventClasses);
+        Class<?> firstEventClass = key.get(0);
+        return (GeneratedListener<T>) multiTypeListeners.get(firstEventClass).computeIfAbsent(key, classes -> {
+            long start = System.nanoTime();
+            GeneratedListener<T> generatedListener = generate(eventClasses);
+            generatedCount.increment();
+            cachedEventClasses.put(firstEventClass, Boolean.TRUE);
+            metrics.listenerCreated(firstEventClass, System.nanoTime() - start);
+            return generatedListener;
+        });
     }
 
     /**
-     * Dynamically generates a sub-class of {@link ReactorCacheListener} with a method named 'listenGenerated' that has
-     * a single parameter of type {@code eventClass}.
+     * Removes the cached listener of the given event type. The listener is generated again the next time it is needed.
+     * @param eventClass the type of event whose listener should be evicted
+     * @return {@code true} if a cached listener was evicted
+     */
+    boolean evict(Class<?> eventClass) {
+        if (cachedEventClasses.remove(eventClass) == null) {
+            return false;
+        }
+        eventClassToListener.remove(eventClass);
+        multiTypeListeners.remove(eventClass);
+        evictionCount.increment();
+        return true;
+    }
+
+    /**
+     * Removes all the cached listeners
+     */
+    void evictAll() {
+        for (Class<?> eventClass : cachedEventClasses.keySet()) {
+            evict(eventClass);
+        }
+    }
+
+    ListenerCacheStats stats() {
+        return new ListenerCacheStats(cachedEventClasses.size(), generatedCount.sum(), evictionCount.sum());
+    }
+
+    private <T> GeneratedListener<T> generate(Class<T> eventClass) {
+        Class<? extends ReactorCacheListener<T>> listenerClass = generateListenerClass(eventClass);
+        return new GeneratedListener<>(listenerClass, generateListenerConstructor(listenerClass));
+    }
+
+    private <T> GeneratedListener<T> generate(List<? extends Class<? extends T>> eventClasses) {
+        Class<? extends ReactorCacheListener<T>> listenerClass = generateListenerClass(eventClasses);
+        return new GeneratedListener<>(listenerClass, generateListenerConstructor(listenerClass));
+    }
+
+    /**
+     * Dynamically generates a sub-class of {@link ReactorCacheListener} with a public method named 'listenGenerated'
+     * that has a single parameter of type {@code eventClass}. The generated method reads the {@link FluxSink} field of
+     * the listener and invokes {@link FluxSink#next(Object)} on it directly so that the whole call chain can be
+     * inlined.
      * @param eventClass the type of event that should be handled by the generated {@link ReactorCacheListener}
      * @return the generated {@link ReactorCacheListener}
      */
     @SuppressWarnings("unchecked")
     <T> Class<? extends ReactorCacheListener<T>> generateListenerClass(Class<T> eventClass) {
-        return (Class<? extends ReactorCacheListener<T>>) eventClassToListener.computeIfAbsent(eventClass, eventClazz ->
-                new ByteBuddy().subclass(ReactorCacheListener.class)
-                        .defineMethod("listenGenerated", void.class).withParameter(eventClazz)
-                        .intercept(MethodDelegation.to(ListenerFactory.class))
-                        .annotateMethod(LISTENER_ANNOTATIONS)
-                        .make()
-                        .load(ClassLoader.getSystemClassLoader())
-                        .getLoaded());
+        DynamicType.Unloaded<ReactorCacheListener<?>> listenerType = new ByteBuddy().subclass(LISTENER_TYPE)
+                .defineMethod("listenGenerated", void.class, Visibility.PUBLIC).withParameter(eventClass)
+                .intercept(MethodCall.invoke(FLUX_SINK_NEXT).onField("fluxSink").withArgument(0))
+                .annotateMethod(LISTENER_ANNOTATIONS)
+                .make();
+        ClassLoader classLoader = GeneratedTypeLoader.classLoaderFor(eventClass);
+        return (Class<? extends ReactorCacheListener<T>>) GeneratedTypeLoader.load(listenerType, classLoader);
+    }
+
+    /**
+     * Dynamically generates a sub-class of {@link ReactorCacheListener} with one public 'listenGenerated' overload for
+     * each of the given event types. Every overload invokes {@link FluxSink#next(Object)} on the same sink.
+     * @param eventClasses the types of events that should be handled by the generated {@link ReactorCacheListener}
+     * @return the generated {@link ReactorCacheListener}
+     */
+    @SuppressWarnings("unchecked")
+    <T> Class<? extends ReactorCacheListener<T>> generateListenerClass(List<? extends Class<? extends T>> eventClasses) {
+        DynamicType.Builder<ReactorCacheListener<?>> builder = new ByteBuddy().subclass(LISTENER_TYPE);
+        for (Class<? extends T> eventClass : eventClasses) {
+            builder = builder.defineMethod("listenGenerated", void.class, Visibility.PUBLIC).withParameter(eventClass)
+                    .intercept(MethodCall.invoke(FLUX_SINK_NEXT).onField("fluxSink").withArgument(0))
+                    .annotateMethod(LISTENER_ANNOTATIONS);
+        }
+        ClassLoader classLoader = GeneratedTypeLoader.classLoaderFor(eventClasses);
+        return (Class<? extends ReactorCacheListener<T>>) GeneratedTypeLoader.load(builder.make(), classLoader);
+    }
 
+    /**
+     * Dynamically generates a {@link ListenerConstructor} that invokes the public constructor of {@code listenerClass}
+     * taking a {@link FluxSink} as its single argument.
+     * @param listenerClass the class that will be instantiated by the generated {@link ListenerConstructor}
+     * @return the {@link ListenerConstructor} instance
+     */
+    @SuppressWarnings("unchecked")
+    <T> ListenerConstructor<T> generateListenerConstructor(Class<? extends ReactorCacheListener<T>> listenerClass) {
+        try {
+            Constructor<? extends ReactorCacheListener<T>> constructor = listenerClass.getConstructor(FluxSink.class);
+            DynamicType.Unloaded<ListenerConstructor<T>> constructorType = new ByteBuddy()
+                    .subclass((Class<ListenerConstructor<T>>) (Class<?>) ListenerConstructor.class)
+                    .method(named("newInstance"))
+                    .intercept(MethodCall.construct(constructor).withArgument(0))
+                    .make();
+            return GeneratedTypeLoader.load(constructorType, listenerClass.getClassLoader()).newInstance();
+        } catch (InstantiationException | IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalArgumentException("Unable to instantiate a listener for the given argument type", e);
+        }
     }
 
-    @SuppressWarnings("unused")
-    static <T> void listenGenerated(@This ReactorCacheListener<T> reactorCacheListener, @Argument(0) T event) {
-        reactorCacheListener.listen(event);
+    private static Method fluxSinkNext() {
+        try {
+            return FluxSink.class.getMethod("next", Object.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Unable to find the next method of FluxSink", e);
+        }
     }
 
     @SuppressWarnings("ClassExplicitlyAnnotation")
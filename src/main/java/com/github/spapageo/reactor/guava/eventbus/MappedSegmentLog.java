@@ -0,0 +1,266 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An append-only log of byte records stored in memory-mapped segment files of a fixed size. Records are read back in
+ * the order they were appended and a segment is recycled as soon as all its records have been read, so the files on
+ * disk only grow with the unread backlog. Each record is stored as its length followed by its bytes and a negative
+ * length marks the end of a segment whose remaining space could not hold the next record. The mapping of a segment is
+ * released as soon as its file is deleted instead of whenever its buffer happens to be garbage collected.
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+final class MappedSegmentLog implements Closeable {
+    private static final int END_OF_SEGMENT = -1;
+    private static final int MAX_FREE_SEGMENTS = 2;
+    private static final Consumer<ByteBuffer> UNMAPPER = unmapper();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Deque<Segment> freeSegments = new ArrayDeque<>();
+    private long size;
+    private boolean closed;
+
+    /**
+     * @param directory   the directory of the segment files, it is created if it does not exist
+     * @param segmentSize the size of each segment file in bytes, it limits the size of a single record
+     */
+    MappedSegmentLog(Path directory, int segmentSize) {
+        checkArgument(segmentSize > Integer.BYTES, "The segment size must be larger than %s bytes", Integer.BYTES);
+        this.directory = checkNotNull(directory);
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends a record to the log
+     * @param record the bytes of the record
+     * @throws IOException if a segment file could not be created
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     */
+    void append(byte[] record) throws IOException {
+        checkArgument(record.length <= segmentSize - Integer.BYTES,
+                "A record of %s bytes does not fit in a segment of %s bytes", record.length, segmentSize);
+        if (closed) {
+            return;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writeBuffer.remaining() < Integer.BYTES + record.length) {
+            if (tail != null && tail.writeBuffer.remaining() >= Integer.BYTES) {
+                tail.writeBuffer.putInt(END_OF_SEGMENT);
+            }
+            tail = nextSegment();
+            segments.addLast(tail);
+        }
+        tail.writeBuffer.putInt(record.length).put(record);
+        size++;
+    }
+
+    /**
+     * @return the oldest unread record, or {@code null} if all records have been read
+     */
+    byte[] poll() {
+        ByteBuffer readBuffer = nextRecord();
+        if (readBuffer == null) {
+            return null;
+        }
+        byte[] record = new byte[readBuffer.getInt()];
+        readBuffer.get(record);
+        size--;
+        if (size == 0) {
+            // The log is empty, rewind the remaining segment instead of rolling over to a new one
+            segments.peekFirst().rewind();
+        }
+        return record;
+    }
+
+    /**
+     * @return the oldest unread record without reading it, or {@code null} if all records have been read
+     */
+    byte[] peek() {
+        ByteBuffer readBuffer = nextRecord();
+        if (readBuffer == null) {
+            return null;
+        }
+        ByteBuffer record = readBuffer.duplicate();
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        return bytes;
+    }
+
+    long size() {
+        return size;
+    }
+
+    int segmentCount() {
+        return segments.size() + freeSegments.size();
+    }
+
+    /**
+     * Discards all the unread records and keeps the segment files for reuse
+     */
+    void clear() {
+        Segment segment;
+        while ((segment = segments.pollFirst()) != null) {
+            recycle(segment);
+        }
+        size = 0;
+    }
+
+    /**
+     * Discards all the unread records and deletes the segment files
+     */
+    @Override
+    public void close() {
+        closed = true;
+        size = 0;
+        Segment segment;
+        while ((segment = segments.pollFirst()) != null) {
+            segment.delete();
+        }
+        while ((segment = freeSegments.pollFirst()) != null) {
+            segment.delete();
+        }
+    }
+
+    /**
+     * Recycles the segments that have been read completely
+     * @return the read buffer of the segment that holds the oldest unread record, positioned at the record
+     */
+    private ByteBuffer nextRecord() {
+        if (size == 0) {
+            return null;
+        }
+        for (;;) {
+            Segment head = segments.peekFirst();
+            ByteBuffer readBuffer = head.readBuffer;
+            if (readBuffer.remaining() >= Integer.BYTES && readBuffer.getInt(readBuffer.position()) != END_OF_SEGMENT) {
+                return readBuffer;
+            }
+            recycle(segments.pollFirst());
+        }
+    }
+
+    private Segment nextSegment() throws IOException {
+        Segment segment = freeSegments.pollFirst();
+        if (segment != null) {
+            return segment;
+        }
+        Files.createDirectories(directory);
+        return new Segment(Files.createTempFile(directory, "events-", ".segment"), segmentSize);
+    }
+
+    private void recycle(Segment segment) {
+        if (freeSegments.size() < MAX_FREE_SEGMENTS) {
+            segment.rewind();
+            freeSegments.addLast(segment);
+        } else {
+            segment.delete();
+        }
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final ByteBuffer writeBuffer;
+        private final ByteBuffer readBuffer;
+
+        private Segment(Path file, int segmentSize) throws IOException {
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                this.writeBuffer = mappedBuffer;
+                this.readBuffer = mappedBuffer.duplicate();
+            }
+        }
+
+        private void rewind() {
+            writeBuffer.clear();
+            readBuffer.clear();
+        }
+
+        private void delete() {
+            UNMAPPER.accept(writeBuffer);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Resolves the JDK internal method that releases the mapping of a buffer: {@code Unsafe.invokeCleaner} on Java 9
+     * and later, or the cleaner of the buffer on Java 8. If neither is accessible the mapping is released when the
+     * buffer is garbage collected.
+     */
+    private static Consumer<ByteBuffer> unmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            try {
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                Object unsafe = theUnsafe.get(null);
+                return buffer -> invokeQuietly(invokeCleaner, unsafe, buffer);
+            } catch (NoSuchMethodException e) {
+                Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return buffer -> invokeQuietly(clean, invokeQuietly(cleaner, buffer));
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return buffer -> { };
+        }
+    }
+
+    private static Object invokeQuietly(Method method, Object target, Object... arguments) {
+        if (target == null) {
+            return null;
+        }
+        try {
+            return method.invoke(target, arguments);
+        } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+            return null;
+        }
+    }
+}
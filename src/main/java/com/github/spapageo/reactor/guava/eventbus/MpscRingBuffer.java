@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.util.concurrent.QueueSupplier;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue backed by a preallocated ring of slots. Each slot carries
+ * a sequence number that tells producers and the consumer whether the slot is free or published, so that offering and
+ * polling do not allocate.
+ * @param <T> the type of the elements held in this queue
+ */
+final class MpscRingBuffer<T> extends AbstractQueue<T> {
+    private final int mask;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    /**
+     * @param capacity the minimum capacity of the ring, it is rounded up to the next power of two. A ring needs at least
+     *                 two slots so that a free slot can be told apart from a published one.
+     */
+    MpscRingBuffer(int capacity) {
+        checkArgument(capacity > 0, "The capacity must be positive");
+        int actualCapacity = QueueSupplier.ceilingNextPowerOfTwo(Math.max(2, capacity));
+        this.mask = actualCapacity - 1;
+        this.elements = new AtomicReferenceArray<>(actualCapacity);
+        this.sequences = new AtomicLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++) {
+            sequences.lazySet(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * May be called concurrently by any number of producers
+     * @return {@code false} if the ring is full
+     */
+    @Override
+    public boolean offer(T element) {
+        checkNotNull(element);
+        for (;;) {
+            long index = producerIndex.get();
+            int offset = (int) index & mask;
+            long difference = sequences.get(offset) - index;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(offset, element);
+                    sequences.set(offset, index + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Must only be called by a single consumer at a time
+     */
+    @Override
+    public T poll() {
+        long index = consumerIndex;
+        int offset = (int) index & mask;
+        if (sequences.get(offset) != index + 1) {
+            return null;
+        }
+        T element = elements.get(offset);
+        elements.lazySet(offset, null);
+        sequences.lazySet(offset, index + mask + 1);
+        consumerIndex = index + 1;
+        return element;
+    }
+
+    /**
+     * Must only be called by a single consumer at a time
+     */
+    @Override
+    public T peek() {
+        long index = consumerIndex;
+        int offset = (int) index & mask;
+        return sequences.get(offset) == index + 1 ? elements.get(offset) : null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, Math.min(producerIndex.get() - consumerIndex, capacity()));
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // drop all the elements
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException("The ring buffer can not be iterated");
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.publisher.FluxSink;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A {@link FluxSink} that fans out every event to a lock-free, copy-on-write array of subscriber sinks. It is given to a
+ * single {@link ReactorCacheListener} so that only one listener per event class is registered with the
+ * {@link com.google.common.eventbus.EventBus} regardless of the number of subscribers.
+ * @param <T> the type of events that this sink fans out
+ */
+final class MulticastFluxSink<T> extends AbstractEventSink<T> {
+    @SuppressWarnings("rawtypes")
+    private static final FluxSink[] EMPTY = new FluxSink[0];
+    @SuppressWarnings("rawtypes")
+    private static final FluxSink[] TERMINATED = new FluxSink[0];
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<MulticastFluxSink, FluxSink[]> SUBSCRIBERS =
+            AtomicReferenceFieldUpdater.newUpdater(MulticastFluxSink.class, FluxSink[].class, "subscribers");
+
+    @SuppressWarnings("unchecked")
+    private volatile FluxSink<T>[] subscribers = EMPTY;
+
+    /**
+     * Adds a subscriber sink to the fan-out array
+     * @param sink the sink to add
+     * @return {@code false} if this sink has already been terminated because its last subscriber was removed
+     */
+    boolean add(FluxSink<T> sink) {
+        for (;;) {
+            FluxSink<T>[] current = subscribers;
+            if (current == TERMINATED) {
+                return false;
+            }
+            int length = current.length;
+            FluxSink<T>[] next = newArray(length + 1);
+            System.arraycopy(current, 0, next, 0, length);
+            next[length] = sink;
+            if (SUBSCRIBERS.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes a subscriber sink from the fan-out array. Removing the last subscriber cancels this sink.
+     * @param sink the sink to remove
+     * @return {@code true} if the removed sink was the last one and this sink is now terminated
+     */
+    @SuppressWarnings("unchecked")
+    boolean remove(FluxSink<T> sink) {
+        for (;;) {
+            FluxSink<T>[] current = subscribers;
+            int length = current.length;
+            int index = -1;
+            for (int i = 0; i < length; i++) {
+                if (current[i] == sink) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+            FluxSink<T>[] next;
+            if (length == 1) {
+                next = TERMINATED;
+            } else {
+                next = newArray(length - 1);
+                System.arraycopy(current, 0, next, 0, index);
+                System.arraycopy(current, index + 1, next, index, length - index - 1);
+            }
+            if (SUBSCRIBERS.compareAndSet(this, current, next)) {
+                if (next == TERMINATED) {
+                    cancelled();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.length;
+    }
+
+    @Override
+    public void next(T event) {
+        for (FluxSink<T> subscriber : subscribers) {
+            subscriber.next(event);
+        }
+    }
+
+    @Override
+    public void complete() {
+        for (FluxSink<T> subscriber : subscribers) {
+            subscriber.complete();
+        }
+        terminated();
+    }
+
+    @Override
+    public void error(Throwable e) {
+        for (FluxSink<T> subscriber : subscribers) {
+            subscriber.error(e);
+        }
+        terminated();
+    }
+
+    @Override
+    public long requestedFromDownstream() {
+        long requested = 0;
+        for (FluxSink<T> subscriber : subscribers) {
+            requested = Math.max(requested, subscriber.requestedFromDownstream());
+        }
+        return requested;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return subscribers == TERMINATED;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> FluxSink<T>[] newArray(int length) {
+        return (FluxSink<T>[]) new FluxSink<?>[length];
+    }
+}
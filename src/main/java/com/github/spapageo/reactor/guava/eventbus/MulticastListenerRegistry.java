@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps a single {@link ReactorCacheListener} per event class registered with the {@link EventBus} and fans out the
+ * events it receives to all the currently subscribed {@link FluxSink}s. The listener is registered when the first
+ * subscriber arrives and unregistered when the last one leaves.
+ */
+class MulticastListenerRegistry {
+    private final EventBus eventBus;
+    private final ListenerFactory listenerFactory;
+
+    private final Map<Class<?>, Entry<?>> eventClassToEntry = new ConcurrentHashMap<>();
+
+    MulticastListenerRegistry(EventBus eventBus, ListenerFactory listenerFactory) {
+        this.eventBus = checkNotNull(eventBus);
+        this.listenerFactory = checkNotNull(listenerFactory);
+    }
+
+    /**
+     * Adds the given sink to the subscribers of {@code eventClass}, registering a listener with the {@link EventBus}
+     * if this is the first subscriber.
+     * @param eventClass the class of the events the sink is interested in
+     * @param fluxSink the sink that will receive the events
+     * @param <T> the type of the event
+     */
+    <T> void subscribe(Class<T> eventClass, FluxSink<T> fluxSink) {
+        for (;;) {
+            Entry<T> entry = entryFor(eventClass);
+            if (entry.multicastSink.add(fluxSink)) {
+                return;
+            }
+            // The entry was terminated concurrently by its last subscriber, remove it so that a new one is created
+            eventClassToEntry.remove(eventClass, entry);
+        }
+    }
+
+    /**
+     * Removes the given sink from the subscribers of {@code eventClass}, unregistering the listener from the
+     * {@link EventBus} if this was the last subscriber.
+     * @param eventClass the class of the events the sink is interested in
+     * @param fluxSink the sink that will no longer receive events
+     * @param <T> the type of the event
+     */
+    @SuppressWarnings("unchecked")
+    <T> void unsubscribe(Class<T> eventClass, FluxSink<T> fluxSink) {
+        Entry<T> entry = (Entry<T>) eventClassToEntry.get(eventClass);
+        if (entry != null && entry.multicastSink.remove(fluxSink)) {
+            eventClassToEntry.remove(eventClass, entry);
+            eventBus.unregister(entry.listener);
+        }
+    }
+
+    int subscriberCount(Class<?> eventClass) {
+        Entry<?> entry = eventClassToEntry.get(eventClass);
+        return entry == null ? 0 : entry.multicastSink.subscriberCount();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> entryFor(Class<T> eventClass) {
+        return (Entry<T>) eventClassToEntry.computeIfAbsent(eventClass, eventClazz -> {
+            MulticastFluxSink<T> multicastSink = new MulticastFluxSink<>();
+            ReactorCacheListener<T> listener = listenerFactory.generateListener(eventClass).newInstance(multicastSink);
+            eventBus.register(listener);
+            return new Entry<>(multicastSink, listener);
+        });
+    }
+
+    private static final class Entry<T> {
+        private final MulticastFluxSink<T> multicastSink;
+        private final ReactorCacheListener<T> listener;
+
+        private Entry(MulticastFluxSink<T> multicastSink, ReactorCacheListener<T> listener) {
+            this.multicastSink = multicastSink;
+            this.listener = listener;
+        }
+    }
+}
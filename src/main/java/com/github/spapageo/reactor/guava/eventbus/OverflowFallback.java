@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decides what happens to an event that could not be buffered by a bounded flux because its buffer stayed full for as
+ * long as its {@link RingBufferWaitStrategy} allowed.
+ * @param <T> the type of the events
+ */
+@FunctionalInterface
+public interface OverflowFallback<T> {
+
+    /**
+     * Invoked on the posting thread with the event that could not be buffered
+     * @param event the event
+     * @return {@code true} if the event was handled and the flux continues or {@code false} to terminate the flux with
+     * an overflow error
+     */
+    boolean onOverflow(T event);
+
+    /**
+     * @param <T> the type of the events
+     * @return a fallback that discards the event and keeps the flux going
+     */
+    static <T> OverflowFallback<T> drop() {
+        return event -> true;
+    }
+
+    /**
+     * @param <T> the type of the events
+     * @return a fallback that terminates the flux with an overflow error
+     */
+    static <T> OverflowFallback<T> error() {
+        return event -> false;
+    }
+
+    /**
+     * @param spillway receives the events that could not be buffered, for example to persist them elsewhere
+     * @param <T>      the type of the events
+     * @return a fallback that hands the event over to {@code spillway} and keeps the flux going
+     */
+    static <T> OverflowFallback<T> spill(Consumer<? super T> spillway) {
+        checkNotNull(spillway);
+        return event -> {
+            spillway.accept(event);
+            return true;
+        };
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A multi-producer single-consumer queue that keeps its elements in one bounded lane per priority. Polling serves the
+ * highest priority lane that is not empty, unless a lower priority lane has been passed over more than
+ * {@code starvationLimit} consecutive times while it was not empty, in which case that lane is served once. A full lane
+ * rejects the offered element without affecting the other lanes.
+ * @param <T> the type of the elements held in this queue
+ */
+final class PriorityLanesQueue<T> extends AbstractQueue<T> {
+    private final Lanes lanes;
+    private final MpscRingBuffer<T>[] buffers;
+    private final int[] skipped;
+    private final int starvationLimit;
+
+    /**
+     * @param lanes           maps the elements to their lanes
+     * @param laneCapacity    the capacity of every lane, rounded up to the next power of two and to at least two
+     * @param starvationLimit the number of consecutive times a non empty lane can be passed over
+     */
+    PriorityLanesQueue(Lanes lanes, int laneCapacity, int starvationLimit) {
+        this.lanes = lanes;
+        this.buffers = newArray(lanes.laneCount());
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new MpscRingBuffer<>(laneCapacity);
+        }
+        this.skipped = new int[buffers.length];
+        this.starvationLimit = starvationLimit;
+    }
+
+    @Override
+    public boolean offer(T element) {
+        return buffers[lanes.laneOf(element.getClass())].offer(element);
+    }
+
+    @Override
+    public T poll() {
+        int served = -1;
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i].isEmpty()) {
+                skipped[i] = 0;
+            } else if (served < 0) {
+                served = i;
+            } else if (++skipped[i] > starvationLimit) {
+                served = i;
+                break;
+            }
+        }
+        if (served < 0) {
+            return null;
+        }
+        skipped[served] = 0;
+        return buffers[served].poll();
+    }
+
+    @Override
+    public T peek() {
+        for (MpscRingBuffer<T> buffer : buffers) {
+            T element = buffer.peek();
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (MpscRingBuffer<T> buffer : buffers) {
+            if (!buffer.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (MpscRingBuffer<T> buffer : buffers) {
+            size += buffer.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (MpscRingBuffer<T> buffer : buffers) {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException("The priority lanes can not be iterated");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> MpscRingBuffer<T>[] newArray(int length) {
+        return (MpscRingBuffer<T>[]) new MpscRingBuffer<?>[length];
+    }
+
+    /**
+     * Maps event classes to lanes, one lane per distinct priority with the highest priority first. An event class is
+     * mapped to the lane of the highest priority among the configured classes it is assignable to, and to the lowest
+     * priority lane if there is none. The mapping is shared by all the queues of the same configuration.
+     */
+    static final class Lanes {
+        private final int laneCount;
+        private final ClassValue<Integer> eventClassToLane;
+
+        Lanes(Map<? extends Class<?>, Integer> eventClassPriorities) {
+            checkArgument(!eventClassPriorities.isEmpty(), "At least one event class is required");
+            Map<Class<?>, Integer> priorities = ImmutableMap.copyOf(eventClassPriorities);
+            Integer[] descendingPriorities = new TreeSet<>(priorities.values()).descendingSet().toArray(new Integer[0]);
+            this.laneCount = descendingPriorities.length;
+            this.eventClassToLane = new ClassValue<Integer>() {
+                @Override
+                protected Integer computeValue(Class<?> eventClass) {
+                    for (int lane = 0; lane < descendingPriorities.length; lane++) {
+                        for (Map.Entry<Class<?>, Integer> priority : priorities.entrySet()) {
+                            if (priority.getValue().equals(descendingPriorities[lane])
+                                    && priority.getKey().isAssignableFrom(eventClass)) {
+                                return lane;
+                            }
+                        }
+                    }
+                    return descendingPriorities.length - 1;
+                }
+            };
+        }
+
+        int laneCount() {
+            return laneCount;
+        }
+
+        int laneOf(Class<?> eventClass) {
+            return eventClassToLane.get(eventClass);
+        }
+    }
+}
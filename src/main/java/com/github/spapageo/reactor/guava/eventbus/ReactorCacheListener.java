@@ -27,13 +27,18 @@ import reactor.core.publisher.FluxSink;
 
 /**
  * A class the is registered as a guava {@link com.google.common.eventbus.EventBus} listener and forwards all
- * invocations to a {@link FluxSink}
+ * invocations to a {@link FluxSink}. The generated sub-classes read the {@code fluxSink} field directly, so its name
+ * and visibility are part of the contract with {@link ListenerFactory}.
+ * <p>
+ * This class is not part of the public API. It is public only so that listeners generated in class loaders other than
+ * the one of this library can extend it.
+ * </p>
  * @param <T> the type of events that this class listens for
  */
-class ReactorCacheListener<T> {
-    private FluxSink<T> fluxSink;
+public class ReactorCacheListener<T> {
+    protected final FluxSink<T> fluxSink;
 
-    ReactorCacheListener(FluxSink<T> fluxSink) {
+    protected ReactorCacheListener(FluxSink<T> fluxSink) {
         this.fluxSink = fluxSink;
     }
 
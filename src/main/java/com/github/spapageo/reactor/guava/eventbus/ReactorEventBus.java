@@ -0,0 +1,390 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.EventBus;
+import com.google.common.reflect.TypeToken;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>
+ * A drop-in replacement of guava {@link EventBus} that is optimised for posting. Registration and un-registration
+ * rebuild a dispatch table, so that posting an event is a single lookup of the subscribers of its concrete class,
+ * including the subscribers of its super types. Subscriber methods are invoked through generated invokers instead of
+ * reflection.
+ * </p>
+ * <p>
+ * The semantics of guava are kept: subscribers of every super type of an event receive it, {@link DeadEvent}s are
+ * posted for events without subscribers, subscribers that are not annotated with
+ * {@link com.google.common.eventbus.AllowConcurrentEvents} are never invoked concurrently and, with the default
+ * {@link Ordering#PER_THREAD_QUEUED} ordering, events posted from within a subscriber are dispatched after the current
+ * event.
+ * </p>
+ * <p>
+ * With {@link TypeMatching#EXACT} type matching, events are delivered only to the subscribers of their exact class,
+ * which is cheaper when the event classes are flat and no subscriber relies on super types.
+ * </p>
+ * <p>
+ * Besides working with {@link ReactorEventBusHelper}, the bus can create fluxes directly through
+ * {@link #listenFor(Class)}, which skips listener generation altogether.
+ * </p>
+ */
+public class ReactorEventBus extends EventBus {
+    private static final BiConsumer<Object, Object> SINK_INVOKER = ReactorEventBus::next;
+    private static final EventSubscriber[] NO_SUBSCRIBERS = new EventSubscriber[0];
+
+    private final Ordering ordering;
+    private final TypeMatching typeMatching;
+    private final ExceptionHandler exceptionHandler;
+    private final ConcurrentMap<Class<?>, CopyOnWriteArraySet<EventSubscriber>> subscribersByType =
+            new MapMaker().makeMap();
+    private final ThreadLocal<DispatchQueue> dispatchQueues = ThreadLocal.withInitial(DispatchQueue::new);
+    private volatile ConcurrentMap<Class<?>, EventSubscriber[]> dispatchTable = newDispatchTable();
+    private volatile ImmutableMap<Class<?>, EventSubscriber[]> exactDispatchTable = ImmutableMap.of();
+
+    /**
+     * The order in which events are dispatched to subscribers
+     */
+    public enum Ordering {
+        /**
+         * Events posted from within a subscriber are queued and dispatched after all subscribers of the current event,
+         * which is the default behaviour of guava {@link EventBus}
+         */
+        PER_THREAD_QUEUED,
+        /**
+         * Events are dispatched immediately to all subscribers on the posting thread, even if they are posted from
+         * within a subscriber. This avoids the per thread queue.
+         */
+        IMMEDIATE
+    }
+
+    /**
+     * How the class of a posted event is matched to the event types of the subscribers
+     */
+    public enum TypeMatching {
+        /**
+         * Events are delivered to the subscribers of their class and of all its super types, which is the behaviour
+         * of guava {@link EventBus}
+         */
+        HIERARCHY,
+        /**
+         * Events are delivered only to the subscribers of their exact class. The subscribers are resolved with a single
+         * lookup in a table that is rebuilt on registration, without flattening the type hierarchy, and subscribers of
+         * super types such as {@link Object} do not receive the events of sub-types.
+         */
+        EXACT
+    }
+
+    /**
+     * Handles exceptions thrown by subscribers
+     */
+    @FunctionalInterface
+    public interface ExceptionHandler {
+        /**
+         * Handles an exception thrown by a subscriber
+         * @param exception        the exception thrown by the subscriber
+         * @param event            the event that was being dispatched
+         * @param subscriber       the subscriber object
+         * @param subscriberMethod the method that threw, or {@code null} for subscribers created with
+         *                         {@link #listenFor(Class)}
+         */
+        void handleException(Throwable exception, Object event, Object subscriber, Method subscriberMethod);
+    }
+
+    /**
+     * Creates a new bus named "default"
+     */
+    public ReactorEventBus() {
+        this("default");
+    }
+
+    /**
+     * Creates a new bus with the given identifier
+     * @param identifier a brief name for this bus, for logging purposes
+     */
+    public ReactorEventBus(String identifier) {
+        this(identifier, Ordering.PER_THREAD_QUEUED);
+    }
+
+    /**
+     * Creates a new bus with the given identifier and event ordering
+     * @param identifier a brief name for this bus, for logging purposes
+     * @param ordering   the order in which events are dispatched
+     */
+    public ReactorEventBus(String identifier, Ordering ordering) {
+        this(identifier, ordering, loggingHandler(identifier));
+    }
+
+    /**
+     * Creates a new bus
+     * @param identifier       a brief name for this bus, for logging purposes
+     * @param ordering         the order in which events are dispatched
+     * @param exceptionHandler the handler of exceptions thrown by subscribers
+     */
+    public ReactorEventBus(String identifier, Ordering ordering, ExceptionHandler exceptionHandler) {
+        this(identifier, ordering, TypeMatching.HIERARCHY, exceptionHandler);
+    }
+
+    /**
+     * Creates a new bus with the given identifier, event ordering and type matching
+     * @param identifier   a brief name for this bus, for logging purposes
+     * @param ordering     the order in which events are dispatched
+     * @param typeMatching how the class of an event is matched to the event types of the subscribers
+     */
+    public ReactorEventBus(String identifier, Ordering ordering, TypeMatching typeMatching) {
+        this(identifier, ordering, typeMatching, loggingHandler(identifier));
+    }
+
+    /**
+     * Creates a new bus
+     * @param identifier       a brief name for this bus, for logging purposes
+     * @param ordering         the order in which events are dispatched
+     * @param typeMatching     how the class of an event is matched to the event types of the subscribers
+     * @param exceptionHandler the handler of exceptions thrown by subscribers
+     */
+    public ReactorEventBus(String identifier, Ordering ordering, TypeMatching typeMatching,
+                           ExceptionHandler exceptionHandler) {
+        super(checkNotNull(identifier));
+        this.ordering = checkNotNull(ordering);
+        this.typeMatching = checkNotNull(typeMatching);
+        this.exceptionHandler = checkNotNull(exceptionHandler);
+    }
+
+    @Override
+    public void register(Object object) {
+        checkNotNull(object);
+        for (SubscriberMethod subscriberMethod : SubscriberMethod.forListenerClass(object.getClass())) {
+            addSubscriber(subscriberMethod.eventType(), new EventSubscriber(object, subscriberMethod));
+        }
+    }
+
+    @Override
+    public void unregister(Object object) {
+        checkNotNull(object);
+        for (SubscriberMethod subscriberMethod : SubscriberMethod.forListenerClass(object.getClass())) {
+            if (!removeSubscriber(subscriberMethod.eventType(), new EventSubscriber(object, subscriberMethod))) {
+                throw new IllegalArgumentException(
+                        "missing event subscriber for an annotated method. Is " + object + " registered?");
+            }
+        }
+    }
+
+    @Override
+    public void post(Object event) {
+        checkNotNull(event);
+        EventSubscriber[] subscribers = subscribersFor(event.getClass());
+        if (subscribers.length == 0) {
+            if (!(event instanceof DeadEvent)) {
+                post(new DeadEvent(this, event));
+            }
+            return;
+        }
+        if (ordering == Ordering.IMMEDIATE) {
+            dispatch(event, subscribers);
+            return;
+        }
+
+        DispatchQueue queue = dispatchQueues.get();
+        queue.events.offer(event);
+        queue.subscribers.offer(subscribers);
+        if (queue.dispatching) {
+            return;
+        }
+        queue.dispatching = true;
+        try {
+            Object queuedEvent;
+            while ((queuedEvent = queue.events.poll()) != null) {
+                dispatch(queuedEvent, queue.subscribers.poll());
+            }
+        } finally {
+            queue.events.clear();
+            queue.subscribers.clear();
+            queue.dispatching = false;
+        }
+    }
+
+    /**
+     * <p>
+     * Creates a flux of all events of type {@code eventClass}, including its sub-types unless the type matching is
+     * {@link TypeMatching#EXACT}, that are posted to this bus.
+     * Each subscriber of the flux is registered directly in the dispatch table of this bus.
+     * </p>
+     *
+     * @param eventClass the class of the events that will be propagated though the returned flux
+     * @param <T>        the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenFor(Class<T> eventClass) {
+        return listenFor(eventClass, OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * <p>
+     * Creates a flux of all events of type {@code eventClass}, including its sub-types unless the type matching is
+     * {@link TypeMatching#EXACT}, that are posted to this bus.
+     * Each subscriber of the flux is registered directly in the dispatch table of this bus.
+     * </p>
+     *
+     * @param eventClass       the class of the events that will be propagated though the returned flux
+     * @param overflowStrategy the overflow strategy for the created flux
+     * @param <T>              the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenFor(Class<T> eventClass, OverflowStrategy overflowStrategy) {
+        checkNotNull(eventClass);
+        checkNotNull(overflowStrategy);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+
+        return Flux.create(fluxSink -> {
+            EventSubscriber subscriber = new EventSubscriber(fluxSink, null, SINK_INVOKER, true);
+            addSubscriber(eventClass, subscriber);
+
+            fluxSink.onDispose(() -> removeSubscriber(eventClass, subscriber));
+        }, overflowStrategy);
+    }
+
+    private void addSubscriber(Class<?> eventType, EventSubscriber subscriber) {
+        subscribersByType.computeIfAbsent(eventType, type -> new CopyOnWriteArraySet<>()).add(subscriber);
+        subscribersChanged();
+    }
+
+    private boolean removeSubscriber(Class<?> eventType, EventSubscriber subscriber) {
+        Set<EventSubscriber> subscribers = subscribersByType.get(eventType);
+        if (subscribers == null || !subscribers.remove(subscriber)) {
+            return false;
+        }
+        subscribersChanged();
+        return true;
+    }
+
+    private void subscribersChanged() {
+        if (typeMatching == TypeMatching.EXACT) {
+            rebuildExactDispatchTable();
+        } else {
+            dispatchTable = newDispatchTable();
+        }
+    }
+
+    /**
+     * Rebuilds the exact dispatch table from the current subscribers. Rebuilds are serialized so that the table built
+     * last, and therefore published last, reflects every registration change that preceded it.
+     */
+    private void rebuildExactDispatchTable() {
+        synchronized (subscribersByType) {
+            ImmutableMap.Builder<Class<?>, EventSubscriber[]> table = ImmutableMap.builder();
+            for (Map.Entry<Class<?>, CopyOnWriteArraySet<EventSubscriber>> entry : subscribersByType.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    table.put(entry.getKey(), entry.getValue().toArray(NO_SUBSCRIBERS));
+                }
+            }
+            exactDispatchTable = table.build();
+        }
+    }
+
+    /**
+     * Returns the subscribers of the given event class and, unless the type matching is exact, of all its super types.
+     * The table is replaced on every registration change, so a table never holds stale entries once it is published.
+     */
+    EventSubscriber[] subscribersFor(Class<?> eventClass) {
+        if (typeMatching == TypeMatching.EXACT) {
+            EventSubscriber[] subscribers = exactDispatchTable.get(eventClass);
+            return subscribers == null ? NO_SUBSCRIBERS : subscribers;
+        }
+        ConcurrentMap<Class<?>, EventSubscriber[]> table = dispatchTable;
+        EventSubscriber[] subscribers = table.get(eventClass);
+        if (subscribers == null) {
+            subscribers = flatten(eventClass);
+            table.putIfAbsent(eventClass, subscribers);
+        }
+        return subscribers;
+    }
+
+    private EventSubscriber[] flatten(Class<?> eventClass) {
+        List<EventSubscriber> subscribers = new ArrayList<>();
+        for (Class<?> type : TypeToken.of(eventClass).getTypes().rawTypes()) {
+            Set<EventSubscriber> typeSubscribers = subscribersByType.get(type);
+            if (typeSubscribers != null) {
+                subscribers.addAll(typeSubscribers);
+            }
+        }
+        return subscribers.toArray(new EventSubscriber[0]);
+    }
+
+    private void dispatch(Object event, EventSubscriber[] subscribers) {
+        for (EventSubscriber subscriber : subscribers) {
+            subscriber.dispatch(event, exceptionHandler);
+        }
+    }
+
+    private static ConcurrentMap<Class<?>, EventSubscriber[]> newDispatchTable() {
+        return new MapMaker().weakKeys().makeMap();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void next(Object fluxSink, Object event) {
+        ((FluxSink<Object>) fluxSink).next(event);
+    }
+
+    private static ExceptionHandler loggingHandler(String identifier) {
+        Logger logger = Logger.getLogger(ReactorEventBus.class.getName() + "." + identifier);
+        return (exception, event, subscriber, subscriberMethod) -> {
+            if (logger.isLoggable(Level.SEVERE)) {
+                logger.log(Level.SEVERE, "Exception thrown by subscriber method " + subscriberMethod
+                        + " on subscriber " + subscriber + " when dispatching event: " + event, exception);
+            }
+        };
+    }
+
+    /**
+     * The events queued by a thread while it dispatches an earlier event, kept in two parallel deques so that queueing
+     * an event does not allocate once the deques have grown. The queue is cleared, but kept, when the thread is done
+     * dispatching.
+     */
+    private static final class DispatchQueue {
+        final Queue<Object> events = new ArrayDeque<>();
+        final Queue<EventSubscriber[]> subscribers = new ArrayDeque<>();
+        boolean dispatching;
+    }
+}
@@ -23,10 +23,31 @@
 
 package com.github.spapageo.reactor.guava.eventbus;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.EventBus;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.FluxSink.OverflowStrategy;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.QueueSupplier;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -35,17 +56,58 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Enables creating {@link Flux} from the stream of events that are propagated by the {@link EventBus}
  */
 public final class ReactorEventBusHelper {
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
     private final EventBus eventBus;
     private final ListenerFactory listenerFactory;
+    private final MulticastListenerRegistry multicastRegistry;
+    private final KeyedListenerRegistry keyedRegistry;
+    private final ReplayListenerRegistry replayRegistry;
+    private final EventBusMetrics metrics;
+    private final boolean lazyRegistration;
+    private final long idleNanos;
+    private final Scheduler idleTimer;
+    private final boolean threadPerSubscription;
 
     public ReactorEventBusHelper(EventBus eventBus) {
         this(eventBus, new ListenerFactory());
     }
 
-    @VisibleForTesting
     ReactorEventBusHelper(EventBus eventBus, ListenerFactory listenerFactory) {
         this.eventBus = checkNotNull(eventBus);
         this.listenerFactory = checkNotNull(listenerFactory);
+        this.multicastRegistry = null;
+        this.keyedRegistry = new KeyedListenerRegistry(eventBus, listenerFactory);
+        this.replayRegistry = new ReplayListenerRegistry(eventBus, listenerFactory);
+        this.metrics = EventBusMetrics.NOOP;
+        this.lazyRegistration = false;
+        this.idleNanos = -1;
+        this.idleTimer = null;
+        this.threadPerSubscription = false;
+    }
+
+    private ReactorEventBusHelper(Builder builder) {
+        this.eventBus = builder.eventBus;
+        this.metrics = builder.metrics;
+        this.listenerFactory = builder.listenerFactory != null
+                ? builder.listenerFactory
+                : new ListenerFactory(ServiceLoader.load(GeneratedListenerProvider.class), metrics);
+        this.multicastRegistry = builder.multicast ? new MulticastListenerRegistry(eventBus, listenerFactory) : null;
+        this.keyedRegistry = new KeyedListenerRegistry(eventBus, listenerFactory);
+        this.replayRegistry = new ReplayListenerRegistry(eventBus, listenerFactory);
+        this.lazyRegistration = builder.lazyRegistration;
+        this.idleNanos = builder.idleTimeout == null ? -1 : builder.idleTimeout.toNanos();
+        this.idleTimer = builder.idleTimer;
+        this.threadPerSubscription = builder.threadPerSubscription;
+    }
+
+    /**
+     * Creates a {@link Builder} for a {@link ReactorEventBusHelper} that listens on the given {@link EventBus}
+     * @param eventBus the event bus whose events will be propagated through the created fluxes
+     * @return the builder
+     */
+    public static Builder builder(EventBus eventBus) {
+        return new Builder(eventBus);
     }
 
 
@@ -68,6 +130,10 @@ public final class ReactorEventBusHelper {
      * Registers a new listener with the {@link EventBus} of type {@code eventClass}. A copy of all events of this
      * types are propagated through the flux.
      * </p>
+     * <p>
+     * With {@link OverflowStrategy#BUFFER} the flux supports asynchronous queue fusion, so that operators such as
+     * {@code publishOn} and {@code flatMap} poll the buffer of the flux directly instead of adding a queue of their own.
+     * </p>
      *
      * @param eventClass       the class of the events that will be propagated though the returned flux
      * @param overflowStrategy the overflow strategy for the created flux
@@ -79,14 +145,780 @@ public final class ReactorEventBusHelper {
         checkNotNull(overflowStrategy);
         checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
 
-        Class<? extends ReactorCacheListener<T>> generatedListenerClass = listenerFactory.generateListenerClass(eventClass);
+        GeneratedListener<T> generatedListener = listenerFactory.generateListener(eventClass);
+        Flux<T> flux = createFlux(eventClass, generatedListener, overflowStrategy);
+
+        return threadPerSubscription ? drainOnOwnThread(eventClass, flux) : flux;
+    }
+
+    private <T> Flux<T> createFlux(Class<T> eventClass, GeneratedListener<T> generatedListener,
+                                   OverflowStrategy overflowStrategy) {
+        if (metrics != EventBusMetrics.NOOP) {
+            return listenForInstrumented(eventClass, generatedListener, overflowStrategy);
+        }
+
+        if (overflowStrategy == OverflowStrategy.BUFFER && !lazyRegistration && idleNanos < 0) {
+            return new BufferedEventFlux<>(sink -> register(eventClass, generatedListener, sink),
+                    ConcurrentLinkedQueue::new, RingBufferWaitStrategy.fail(), OverflowFallback.error());
+        }
 
         return Flux.create(fluxSink -> {
-            ReactorCacheListener listener = listenerFactory.instantiatedListener(fluxSink, generatedListenerClass);
-            eventBus.register(listener);
+            Disposable registration = subscribe(eventClass, generatedListener, fluxSink, fluxSink);
 
-            fluxSink.onDispose(() -> eventBus.unregister(listener));
+            fluxSink.onDispose(registration);
         }, overflowStrategy);
     }
 
-}
\ No newline at end of file
+    /**
+     * Moves the delivery of the events of every subscription to a single thread of its own, which polls the buffer of
+     * the flux directly when the flux supports fusion. The thread is released when the subscription terminates.
+     */
+    private static <T> Flux<T> drainOnOwnThread(Class<T> eventClass, Flux<T> flux) {
+        return Flux.defer(() -> {
+            String threadName = "event-drain-" + eventClass.getSimpleName();
+            Scheduler drainScheduler = Schedulers.newSingle(DrainThreads.factory(threadName));
+            return flux.publishOn(drainScheduler).doFinally(signal -> drainScheduler.dispose());
+        });
+    }
+
+    private <T> Flux<T> listenForInstrumented(Class<T> eventClass, GeneratedListener<T> generatedListener,
+                                              OverflowStrategy overflowStrategy) {
+        return Flux.defer(() -> {
+            AtomicLong queueDepth = new AtomicLong();
+            LongSupplier queueDepthGauge = queueDepth::get;
+            return Flux.create(fluxSink -> {
+                InstrumentedFluxSink<T> instrumentedSink =
+                        new InstrumentedFluxSink<>(eventClass, fluxSink, overflowStrategy, metrics, queueDepth);
+                Disposable registration = subscribe(eventClass, generatedListener, instrumentedSink, fluxSink);
+                metrics.subscribed(eventClass);
+                metrics.queueAdded(eventClass, queueDepthGauge);
+
+                fluxSink.onDispose(() -> {
+                    registration.dispose();
+                    metrics.queueRemoved(eventClass, queueDepthGauge);
+                    metrics.disposed(eventClass);
+                });
+            }, overflowStrategy)
+                    .map(received -> InstrumentedFluxSink.deliver(received, eventClass, metrics, queueDepth));
+        });
+    }
+
+    /**
+     * <p>
+     * Creates a flux of the events of type {@code eventClass} whose key, as computed by {@code keyExtractor}, is equal
+     * to {@code key}. All the keyed fluxes of the same event class and key extractor share a single listener registered
+     * with the {@link EventBus}, which routes each event to the subscribers of its key with a single hash lookup instead
+     * of testing a filter per subscriber.
+     * </p>
+     * <p>
+     * Key extractors are compared with {@link Object#equals(Object)}, so the same key extractor instance, for example a
+     * constant or a method reference to a static method, should be used for all the fluxes that should share a
+     * registration. Events whose key is {@code null} are not propagated.
+     * </p>
+     *
+     * @param eventClass   the class of the events that will be propagated though the returned flux
+     * @param keyExtractor the function that extracts the key of an event
+     * @param key          the key of the events that will be propagated though the returned flux
+     * @param <T>          the type of the event
+     * @param <K>          the type of the key
+     * @return the flux of events
+     */
+    public <T, K> Flux<T> listenFor(Class<T> eventClass, Function<? super T, ? extends K> keyExtractor, K key) {
+        return listenFor(eventClass, keyExtractor, key, OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * <p>
+     * Creates a flux of the events of type {@code eventClass} whose key, as computed by {@code keyExtractor}, is equal
+     * to {@code key}.
+     * </p>
+     *
+     * @param eventClass       the class of the events that will be propagated though the returned flux
+     * @param keyExtractor     the function that extracts the key of an event
+     * @param key              the key of the events that will be propagated though the returned flux
+     * @param overflowStrategy the overflow strategy for the created flux
+     * @param <T>              the type of the event
+     * @param <K>              the type of the key
+     * @return the flux of events
+     * @see #listenFor(Class, Function, Object)
+     */
+    public <T, K> Flux<T> listenFor(Class<T> eventClass, Function<? super T, ? extends K> keyExtractor, K key,
+                                    OverflowStrategy overflowStrategy) {
+        checkNotNull(eventClass);
+        checkNotNull(keyExtractor);
+        checkNotNull(key);
+        checkNotNull(overflowStrategy);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+
+        return Flux.create(fluxSink -> {
+            keyedRegistry.subscribe(eventClass, keyExtractor, key, fluxSink);
+
+            fluxSink.onDispose(() -> keyedRegistry.unsubscribe(eventClass, keyExtractor, key, fluxSink));
+        }, overflowStrategy);
+    }
+
+    /**
+     * <p>
+     * Registers a single listener with the {@link EventBus} that receives the events of all the given types and
+     * propagates them through one flux, in the order they are posted. This avoids merging one flux per type, which
+     * registers one listener per type and interleaves the events through an extra queue.
+     * </p>
+     * <p>
+     * Types that are sub-types of another given type are ignored, so an event is propagated once even when it matches
+     * several of the given types through its class hierarchy. An event that implements several unrelated given types is
+     * propagated once for each of them. The returned flux is always backed by its own listener, even in multicast mode.
+     * </p>
+     *
+     * @param eventClasses the classes of the events that will be propagated though the returned flux
+     * @param <T>          the common super-type of the events
+     * @return the flux of events
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final <T> Flux<T> listenForAny(Class<? extends T>... eventClasses) {
+        return listenForAny(OverflowStrategy.BUFFER, eventClasses);
+    }
+
+    /**
+     * <p>
+     * Registers a single listener with the {@link EventBus} that receives the events of all the given types and
+     * propagates them through one flux, in the order they are posted.
+     * </p>
+     *
+     * @param overflowStrategy the overflow strategy for the created flux
+     * @param eventClasses     the classes of the events that will be propagated though the returned flux
+     * @param <T>              the common super-type of the events
+     * @return the flux of events
+     * @see #listenForAny(Class[])
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final <T> Flux<T> listenForAny(OverflowStrategy overflowStrategy, Class<? extends T>... eventClasses) {
+        checkNotNull(overflowStrategy);
+        checkNotNull(eventClasses);
+        checkArgument(eventClasses.length > 0, "At least one event class is required");
+
+        GeneratedListener<T> generatedListener =
+                listenerFactory.generateListener(ReactorEventBusHelper.<T>mostGeneral(Arrays.asList(eventClasses)));
+
+        return Flux.create(fluxSink -> {
+            Disposable registration = registerListener(generatedListener, fluxSink);
+
+            fluxSink.onDispose(registration);
+        }, overflowStrategy);
+    }
+
+    /**
+     * Removes the duplicates of the given event classes and the classes that are sub-types of another given class,
+     * keeping the order in which they were given.
+     */
+    private static <T> List<Class<? extends T>> mostGeneral(Collection<? extends Class<? extends T>> eventClasses) {
+        Set<Class<? extends T>> distinct = new LinkedHashSet<>();
+        for (Class<? extends T> eventClass : eventClasses) {
+            checkNotNull(eventClass);
+            checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+            distinct.add(eventClass);
+        }
+        List<Class<? extends T>> mostGeneral = new ArrayList<>(distinct.size());
+        for (Class<? extends T> eventClass : distinct) {
+            boolean covered = false;
+            for (Class<? extends T> other : distinct) {
+                if (other != eventClass && other.isAssignableFrom(eventClass)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                mostGeneral.add(eventClass);
+            }
+        }
+        return mostGeneral;
+    }
+
+    /**
+     * <p>
+     * Registers a single listener with the {@link EventBus} that receives the events of all the given types and
+     * propagates them through one flux, serving the events of higher priority first. Each subscriber buffers its
+     * pending events in one bounded lane per distinct priority, so a backlog of low priority events neither delays nor
+     * crowds out the high priority ones. To keep the low priority events moving under a steady stream of high priority
+     * ones, a lane that has been passed over {@code starvationLimit} consecutive times is served once.
+     * </p>
+     * <p>
+     * An event is buffered in the lane of the highest priority among the given types it is an instance of. When its
+     * lane is full the flux is terminated with an overflow error.
+     * </p>
+     *
+     * @param priorities      the event classes to listen for and their priorities, higher values are served first
+     * @param laneCapacity    the capacity of every lane of each subscriber, rounded up to the next power of two and to
+     *                        at least two
+     * @param starvationLimit the number of consecutive times a lane with pending events can be passed over
+     * @param <T>             the common super-type of the events
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenForPrioritized(Map<? extends Class<? extends T>, Integer> priorities, int laneCapacity,
+                                            int starvationLimit) {
+        return listenForPrioritized(priorities, laneCapacity, starvationLimit, RingBufferWaitStrategy.fail(),
+                OverflowFallback.error());
+    }
+
+    /**
+     * <p>
+     * Registers a single listener with the {@link EventBus} that receives the events of all the given types and
+     * propagates them through one flux, serving the events of higher priority first. When the lane of an event is full
+     * the posting thread follows the given {@link RingBufferWaitStrategy} and hands the event over to
+     * {@code overflowFallback} when the strategy gives up.
+     * </p>
+     *
+     * @param priorities       the event classes to listen for and their priorities, higher values are served first
+     * @param laneCapacity     the capacity of every lane of each subscriber
+     * @param starvationLimit  the number of consecutive times a lane with pending events can be passed over
+     * @param waitStrategy     what the posting thread does while the lane of an event is full
+     * @param overflowFallback what happens to an event once the wait strategy gives up
+     * @param <T>              the common super-type of the events
+     * @return the flux of events
+     * @see #listenForPrioritized(Map, int, int)
+     */
+    public <T> Flux<T> listenForPrioritized(Map<? extends Class<? extends T>, Integer> priorities, int laneCapacity,
+                                            int starvationLimit, RingBufferWaitStrategy waitStrategy,
+                                            OverflowFallback<? super T> overflowFallback) {
+        checkNotNull(priorities);
+        checkNotNull(waitStrategy);
+        checkNotNull(overflowFallback);
+        checkArgument(laneCapacity > 0, "The lane capacity must be positive");
+        checkArgument(starvationLimit > 0, "The starvation limit must be positive");
+
+        PriorityLanesQueue.Lanes lanes = new PriorityLanesQueue.Lanes(priorities);
+        GeneratedListener<T> generatedListener = listenerFactory.generateListener(mostGeneral(priorities.keySet()));
+
+        return new BufferedEventFlux<>(sink -> registerListener(generatedListener, sink),
+                () -> new PriorityLanesQueue<>(lanes, laneCapacity, starvationLimit), waitStrategy, overflowFallback);
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass}. A copy of all events of this
+     * types are propagated through the flux. Each subscriber buffers its pending events in a preallocated lock-free
+     * ring buffer of fixed capacity, so a slow subscriber can not hold more than {@code capacity} events in memory and
+     * buffering does not allocate. When the ring buffer is full the posting thread follows the given
+     * {@link RingBufferWaitStrategy} and terminates the flux with an overflow error when the strategy gives up.
+     * </p>
+     *
+     * @param eventClass   the class of the events that will be propagated though the returned flux
+     * @param capacity     the capacity of the ring buffer of each subscriber, rounded up to the next power of two and
+     *                     to at least two
+     * @param waitStrategy what the posting thread does while the ring buffer is full
+     * @param <T>          the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenForBounded(Class<T> eventClass, int capacity, RingBufferWaitStrategy waitStrategy) {
+        return listenForBounded(eventClass, capacity, waitStrategy, OverflowFallback.error());
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass}. A copy of all events of this
+     * types are propagated through the flux. Each subscriber buffers its pending events in a preallocated lock-free
+     * ring buffer of fixed capacity. When the ring buffer is full the posting thread follows the given
+     * {@link RingBufferWaitStrategy} and hands the event over to {@code overflowFallback} when the strategy gives up.
+     * </p>
+     *
+     * @param eventClass       the class of the events that will be propagated though the returned flux
+     * @param capacity         the capacity of the ring buffer of each subscriber, rounded up to the next power of two
+     *                         and to at least two
+     * @param waitStrategy     what the posting thread does while the ring buffer is full
+     * @param overflowFallback what happens to an event that could not be buffered
+     * @param <T>              the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenForBounded(Class<T> eventClass, int capacity, RingBufferWaitStrategy waitStrategy,
+                                        OverflowFallback<? super T> overflowFallback) {
+        checkNotNull(eventClass);
+        checkNotNull(waitStrategy);
+        checkNotNull(overflowFallback);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+        checkArgument(capacity > 0, "The capacity must be positive");
+
+        GeneratedListener<T> generatedListener = listenerFactory.generateListener(eventClass);
+
+        return new BufferedEventFlux<>(sink -> register(eventClass, generatedListener, sink),
+                () -> new MpscRingBuffer<>(capacity), waitStrategy, overflowFallback);
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass} whose subscribers push back on the
+     * posting threads. Each subscriber buffers up to {@code capacity} pending events and, while its buffer is full,
+     * {@link EventBus#post(Object)} blocks until the subscriber consumes events. An event that can not be buffered
+     * within {@code timeout} is handed over to {@code overflowFallback}.
+     * </p>
+     *
+     * @param eventClass       the class of the events that will be propagated though the returned flux
+     * @param capacity         the capacity of the buffer of each subscriber, rounded up to the next power of two and
+     *                         to at least two
+     * @param timeout          the maximum time that the posting thread waits for buffer space for each event
+     * @param overflowFallback what happens to an event that could not be buffered within the timeout
+     * @param <T>              the type of the event
+     * @return the flux of events
+     * @see RingBufferWaitStrategy#blocking(Duration)
+     */
+    public <T> Flux<T> listenForBlocking(Class<T> eventClass, int capacity, Duration timeout,
+                                         OverflowFallback<? super T> overflowFallback) {
+        return listenForBounded(eventClass, capacity, RingBufferWaitStrategy.blocking(timeout), overflowFallback);
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass} whose subscribers keep up to
+     * {@code memoryCapacity} pending events in memory and spill the rest to memory-mapped segment files of 64 MiB in
+     * {@code directory}.
+     * </p>
+     *
+     * @param eventClass     the class of the events that will be propagated though the returned flux
+     * @param memoryCapacity the number of pending events of each subscriber that are kept in memory, rounded up to the
+     *                       next power of two and to at least two
+     * @param directory      the directory of the segment files
+     * @param codec          converts the spilled events to and from bytes
+     * @param <T>            the type of the event
+     * @return the flux of events
+     * @see #listenForSpilling(Class, int, Path, int, EventCodec)
+     */
+    public <T> Flux<T> listenForSpilling(Class<T> eventClass, int memoryCapacity, Path directory,
+                                         EventCodec<T> codec) {
+        return listenForSpilling(eventClass, memoryCapacity, directory, DEFAULT_SEGMENT_SIZE, codec);
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass} whose subscribers keep up to
+     * {@code memoryCapacity} pending events in memory. Past that threshold the pending events of a subscriber are
+     * encoded with {@code codec} and written to memory-mapped segment files in {@code directory}, and they are read
+     * back in order as the subscriber requests more events. Segments are reused once all their events have been read
+     * and the files are deleted when the subscription ends, so a large backlog stays off the heap.
+     * </p>
+     * <p>
+     * Each subscriber has its own segment files. An event that can not be written to disk, because it is larger than a
+     * segment or because of an I/O error, terminates the flux with an overflow error.
+     * </p>
+     *
+     * @param eventClass     the class of the events that will be propagated though the returned flux
+     * @param memoryCapacity the number of pending events of each subscriber that are kept in memory, rounded up to the
+     *                       next power of two and to at least two
+     * @param directory      the directory of the segment files
+     * @param segmentSize    the size of each segment file in bytes
+     * @param codec          converts the spilled events to and from bytes
+     * @param <T>            the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenForSpilling(Class<T> eventClass, int memoryCapacity, Path directory, int segmentSize,
+                                         EventCodec<T> codec) {
+        checkNotNull(eventClass);
+        checkNotNull(directory);
+        checkNotNull(codec);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+        checkArgument(memoryCapacity > 0, "The memory capacity must be positive");
+        checkArgument(segmentSize > Integer.BYTES, "The segment size must be larger than %s bytes", Integer.BYTES);
+
+        GeneratedListener<T> generatedListener = listenerFactory.generateListener(eventClass);
+
+        return new BufferedEventFlux<>(sink -> register(eventClass, generatedListener, sink),
+                () -> new SpillingQueue<>(new MpscRingBuffer<>(memoryCapacity),
+                        new MappedSegmentLog(directory, segmentSize), codec),
+                RingBufferWaitStrategy.fail(), OverflowFallback.error());
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass} that conflates the pending events of
+     * each subscriber by key. While a subscriber has no demand only the latest event of every key, as computed by
+     * {@code keyExtractor}, is kept and a newer event of a key replaces the pending one. When demand arrives the pending
+     * events are propagated in the order their keys were first updated, so a slow subscriber holds at most one event per
+     * key in memory and never receives a superseded event.
+     * </p>
+     *
+     * @param eventClass   the class of the events that will be propagated though the returned flux
+     * @param keyExtractor the function that extracts the key of an event, events with a {@code null} key are conflated
+     *                     together
+     * @param <T>          the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenForConflated(Class<T> eventClass, Function<? super T, ?> keyExtractor) {
+        checkNotNull(eventClass);
+        checkNotNull(keyExtractor);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+
+        GeneratedListener<T> generatedListener = listenerFactory.generateListener(eventClass);
+
+        return new BufferedEventFlux<>(sink -> register(eventClass, generatedListener, sink),
+                () -> new ConflatingQueue<>(keyExtractor), RingBufferWaitStrategy.fail(), OverflowFallback.error());
+    }
+
+    /**
+     * <p>
+     * Creates a flux of the events of type {@code eventClass} that first propagates the last {@code historySize} events
+     * posted before the subscription and then the live events, without a gap or duplicates. The history is kept in one
+     * ring per event class and history size that is shared by all the replaying fluxes, instead of one copy per
+     * subscriber as with {@link Flux#replay(int)}.
+     * </p>
+     * <p>
+     * The listener that feeds the history is registered with the {@link EventBus} when the first such flux is
+     * subscribed to and unregistered when its last subscriber cancels, so the history is retained only while at least
+     * one subscriber with the same retention is subscribed.
+     * </p>
+     *
+     * @param eventClass  the class of the events that will be propagated though the returned flux
+     * @param historySize the maximum number of events replayed to a new subscriber
+     * @param <T>         the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenForWithReplay(Class<T> eventClass, int historySize) {
+        checkArgument(historySize > 0, "The history size must be positive");
+        return listenForWithReplay(eventClass, historySize, -1, Schedulers.immediate());
+    }
+
+    /**
+     * <p>
+     * Creates a flux of the events of type {@code eventClass} that first propagates the events posted within
+     * {@code window} before the subscription and then the live events, without a gap or duplicates.
+     * </p>
+     *
+     * @param eventClass the class of the events that will be propagated though the returned flux
+     * @param window     the maximum age of the events replayed to a new subscriber
+     * @param <T>        the type of the event
+     * @return the flux of events
+     * @see #listenForWithReplay(Class, int)
+     */
+    public <T> Flux<T> listenForWithReplay(Class<T> eventClass, Duration window) {
+        return listenForWithReplay(eventClass, window, Schedulers.parallel());
+    }
+
+    /**
+     * <p>
+     * Creates a flux of the events of type {@code eventClass} that first propagates the events posted within
+     * {@code window} before the subscription, as measured by the clock of {@code clock}, and then the live events.
+     * </p>
+     *
+     * @param eventClass the class of the events that will be propagated though the returned flux
+     * @param window     the maximum age of the events replayed to a new subscriber
+     * @param clock      the scheduler whose clock timestamps the events
+     * @param <T>        the type of the event
+     * @return the flux of events
+     * @see #listenForWithReplay(Class, int)
+     */
+    public <T> Flux<T> listenForWithReplay(Class<T> eventClass, Duration window, Scheduler clock) {
+        checkNotNull(window);
+        checkNotNull(clock);
+        checkArgument(!window.isNegative() && !window.isZero(), "The window must be positive");
+        return listenForWithReplay(eventClass, Integer.MAX_VALUE, window.toNanos(), clock);
+    }
+
+    private <T> Flux<T> listenForWithReplay(Class<T> eventClass, int historySize, long windowNanos, Scheduler clock) {
+        checkNotNull(eventClass);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+
+        return Flux.create(fluxSink -> {
+            Disposable unsubscribe =
+                    () -> replayRegistry.unsubscribe(eventClass, historySize, windowNanos, clock, fluxSink);
+            fluxSink.onDispose(unsubscribe);
+
+            replayRegistry.subscribe(eventClass, historySize, windowNanos, clock, fluxSink);
+            // A subscriber that cancelled before its dispose callback was registered would otherwise stay subscribed
+            if (fluxSink.isCancelled()) {
+                unsubscribe.dispose();
+            }
+        }, OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass} that accumulates the events in
+     * batches on the posting thread. A batch is propagated through the flux when it contains {@code maxBatchSize}
+     * events or when {@code maxLatency} has elapsed since its first event was posted, whichever comes first.
+     * </p>
+     *
+     * @param eventClass   the class of the events that will be propagated though the returned flux
+     * @param maxBatchSize the maximum number of events in a batch
+     * @param maxLatency   the maximum time that an event waits in a batch before it is propagated
+     * @param <T>          the type of the event
+     * @return the flux of event batches
+     */
+    public <T> Flux<List<T>> listenForBatches(Class<T> eventClass, int maxBatchSize, Duration maxLatency) {
+        return listenForBatches(eventClass, maxBatchSize, maxLatency, Schedulers.parallel());
+    }
+
+    /**
+     * <p>
+     * Registers a new listener with the {@link EventBus} of type {@code eventClass} that accumulates the events in
+     * batches on the posting thread. A batch is propagated through the flux when it contains {@code maxBatchSize}
+     * events or when {@code maxLatency} has elapsed since its first event was posted, whichever comes first.
+     * </p>
+     *
+     * @param eventClass   the class of the events that will be propagated though the returned flux
+     * @param maxBatchSize the maximum number of events in a batch
+     * @param maxLatency   the maximum time that an event waits in a batch before it is propagated
+     * @param timer        the scheduler that propagates the batches whose maximum latency has elapsed, it must support
+     *                     delayed tasks
+     * @param <T>          the type of the event
+     * @return the flux of event batches
+     */
+    public <T> Flux<List<T>> listenForBatches(Class<T> eventClass, int maxBatchSize, Duration maxLatency,
+                                              Scheduler timer) {
+        checkNotNull(eventClass);
+        checkNotNull(maxLatency);
+        checkNotNull(timer);
+        checkArgument(!eventClass.isPrimitive(), "Primitive event types are not supported by guava EventBus");
+        checkArgument(maxBatchSize > 0, "The maximum batch size must be positive");
+        checkArgument(!maxLatency.isNegative() && !maxLatency.isZero(), "The maximum latency must be positive");
+
+        GeneratedListener<T> generatedListener = listenerFactory.generateListener(eventClass);
+
+        return Flux.create(fluxSink -> {
+            BatchingFluxSink<T> batchingSink = new BatchingFluxSink<>(fluxSink, maxBatchSize, maxLatency, timer);
+            Disposable registration = register(eventClass, generatedListener, batchingSink);
+
+            fluxSink.onDispose(() -> {
+                registration.dispose();
+                batchingSink.dispose();
+            });
+        }, OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * <p>
+     * Posts the elements of {@code source} to the given {@link EventBus} on the given {@link Scheduler}, requesting
+     * elements from the source in batches of {@link QueueSupplier#SMALL_BUFFER_SIZE}.
+     * </p>
+     *
+     * @param source    the publisher of the events to post
+     * @param eventBus  the bus to post the events to
+     * @param scheduler the scheduler that posts the events
+     * @param <T>       the type of the events
+     * @return a {@link Mono} that subscribes to the source and completes when all its events have been posted
+     * @see #publish(Publisher, EventBus, Scheduler, int)
+     */
+    public static <T> Mono<Void> publish(Publisher<T> source, EventBus eventBus, Scheduler scheduler) {
+        return publish(source, eventBus, scheduler, QueueSupplier.SMALL_BUFFER_SIZE);
+    }
+
+    /**
+     * <p>
+     * Posts the elements of {@code source} to the given {@link EventBus} on the given {@link Scheduler}. At most
+     * {@code prefetch} elements are requested from the source ahead of posting and demand is replenished in batches as
+     * they are posted, so a fast source can not get further ahead of a slow bus than {@code prefetch} events and the
+     * source is never blocked by the subscribers of the bus.
+     * </p>
+     *
+     * @param source    the publisher of the events to post
+     * @param eventBus  the bus to post the events to
+     * @param scheduler the scheduler that posts the events
+     * @param prefetch  the maximum number of events requested ahead of posting
+     * @param <T>       the type of the events
+     * @return a {@link Mono} that subscribes to the source and completes when all its events have been posted
+     */
+    public static <T> Mono<Void> publish(Publisher<T> source, EventBus eventBus, Scheduler scheduler, int prefetch) {
+        checkNotNull(source);
+        checkNotNull(eventBus);
+        checkNotNull(scheduler);
+        checkArgument(prefetch > 0, "The prefetch must be positive");
+
+        return Flux.from(source)
+                .publishOn(scheduler, prefetch)
+                .doOnNext(eventBus::post)
+                .then();
+    }
+
+    /**
+     * Subscribes the given sink to the events of type {@code eventClass} and, when lazy registration or idle
+     * unregistration is enabled, registers it only while the subscriber of {@code createdSink} wants events.
+     * @return a {@link Disposable} that unsubscribes the sink
+     */
+    private <T> Disposable subscribe(Class<T> eventClass, GeneratedListener<T> generatedListener, FluxSink<T> sink,
+                                     FluxSink<?> createdSink) {
+        if (!lazyRegistration && idleNanos < 0) {
+            return register(eventClass, generatedListener, sink);
+        }
+
+        DemandDrivenSink<T> demandDrivenSink = new DemandDrivenSink<>(sink,
+                demandSink -> register(eventClass, generatedListener, demandSink), idleNanos, idleTimer);
+        demandDrivenSink.start(lazyRegistration);
+        createdSink.onRequest(n -> demandDrivenSink.request());
+        return demandDrivenSink;
+    }
+
+    /**
+     * Subscribes the given sink to the events of type {@code eventClass}, either through its own listener or through
+     * the shared listener of the event class when in multicast mode.
+     * @return a {@link Disposable} that unsubscribes the sink
+     */
+    private <T> Disposable register(Class<T> eventClass, GeneratedListener<T> generatedListener, FluxSink<T> sink) {
+        if (multicastRegistry != null) {
+            multicastRegistry.subscribe(eventClass, sink);
+            return () -> multicastRegistry.unsubscribe(eventClass, sink);
+        }
+
+        return registerListener(generatedListener, sink);
+    }
+
+    /**
+     * Registers a listener of its own for the given sink with the {@link EventBus}
+     * @return a {@link Disposable} that unregisters the listener
+     */
+    private <T> Disposable registerListener(GeneratedListener<T> generatedListener, FluxSink<T> sink) {
+        ReactorCacheListener<T> listener = generatedListener.newInstance(sink);
+        eventBus.register(listener);
+        return () -> eventBus.unregister(listener);
+    }
+
+    /**
+     * @return statistics about the listener classes that this helper has generated and cached
+     */
+    public ListenerCacheStats listenerCacheStats() {
+        return listenerFactory.stats();
+    }
+
+    /**
+     * Evicts the cached listener class of the given event type. Existing fluxes are not affected and the listener class
+     * is generated again the next time a flux of this event type is created.
+     * @param eventClass the type of event whose listener class should be evicted
+     * @return {@code true} if a cached listener class was evicted
+     */
+    public boolean evictListenerClass(Class<?> eventClass) {
+        return listenerFactory.evict(checkNotNull(eventClass));
+    }
+
+    /**
+     * Evicts all the cached listener classes
+     */
+    public void evictListenerClasses() {
+        listenerFactory.evictAll();
+    }
+
+    ListenerFactory listenerFactory() {
+        return listenerFactory;
+    }
+
+    /**
+     * Builds {@link ReactorEventBusHelper} instances
+     */
+    public static final class Builder {
+        private final EventBus eventBus;
+        private boolean multicast;
+        private EventBusMetrics metrics = EventBusMetrics.NOOP;
+        private boolean lazyRegistration;
+        private Duration idleTimeout;
+        private Scheduler idleTimer;
+        private boolean threadPerSubscription;
+        private ListenerFactory listenerFactory;
+
+        private Builder(EventBus eventBus) {
+            this.eventBus = checkNotNull(eventBus);
+        }
+
+        /**
+         * <p>
+         * When enabled a single listener is registered with the {@link EventBus} per event class and all the fluxes of
+         * that class share it. The listener is registered when the first flux is subscribed and unregistered when the
+         * last one is disposed, so subscribing and cancelling fluxes no longer goes through the {@link EventBus}
+         * registry.
+         * </p>
+         *
+         * @param multicast whether one listener per event class should be shared by all fluxes
+         * @return this builder
+         */
+        public Builder multicast(boolean multicast) {
+            this.multicast = multicast;
+            return this;
+        }
+
+        /**
+         * <p>
+         * Reports the creation of listener classes, the subscription and disposal of the fluxes created by
+         * {@link #listenFor(Class, OverflowStrategy)} and the events they receive and deliver to the given metrics.
+         * Fluxes are only instrumented when metrics other than {@link EventBusMetrics#NOOP} are configured.
+         * </p>
+         *
+         * @param metrics the metrics to report to
+         * @return this builder
+         */
+        public Builder metrics(EventBusMetrics metrics) {
+            this.metrics = checkNotNull(metrics);
+            return this;
+        }
+
+        /**
+         * <p>
+         * When enabled the fluxes created by {@link #listenFor(Class, OverflowStrategy)} are registered with the
+         * {@link EventBus} when their subscriber first requests events instead of when they are subscribed, so a
+         * subscriber that does not request yet costs nothing when events are posted. Events posted before the first
+         * request are not received.
+         * </p>
+         *
+         * @param lazyRegistration whether the registration should wait for the first request
+         * @return this builder
+         */
+        public Builder lazyRegistration(boolean lazyRegistration) {
+            this.lazyRegistration = lazyRegistration;
+            return this;
+        }
+
+        /**
+         * <p>
+         * Unregisters the fluxes created by {@link #listenFor(Class, OverflowStrategy)} from the {@link EventBus} once
+         * their subscriber has had no outstanding demand for {@code idleTimeout}, and registers them again when the
+         * subscriber requests more events. A paused subscriber then costs nothing when events are posted, but the
+         * events posted while it is unregistered are not received.
+         * </p>
+         *
+         * @param idleTimeout the time without outstanding demand after which a flux is unregistered
+         * @return this builder
+         */
+        public Builder idleTimeout(Duration idleTimeout) {
+            return idleTimeout(idleTimeout, Schedulers.parallel());
+        }
+
+        /**
+         * @param idleTimeout the time without outstanding demand after which a flux is unregistered
+         * @param timer       the scheduler of the idle checks, it must support delayed tasks
+         * @return this builder
+         * @see #idleTimeout(Duration)
+         */
+        public Builder idleTimeout(Duration idleTimeout, Scheduler timer) {
+            checkNotNull(idleTimeout);
+            checkNotNull(timer);
+            checkArgument(!idleTimeout.isNegative(), "The idle timeout must not be negative");
+            this.idleTimeout = idleTimeout;
+            this.idleTimer = timer;
+            return this;
+        }
+
+        /**
+         * <p>
+         * When enabled every subscription of the fluxes created by {@link #listenFor(Class, OverflowStrategy)} drains
+         * its buffer and invokes its subscriber on a thread of its own instead of on the posting thread, so a
+         * subscriber that blocks delays neither the posting thread nor the other subscribers. On Java 21 and later the
+         * threads are virtual threads, so thousands of subscriptions do not need thousands of platform threads. On
+         * earlier versions they are daemon platform threads.
+         * </p>
+         *
+         * @param threadPerSubscription whether every subscription should be drained on a thread of its own
+         * @return this builder
+         */
+        public Builder threadPerSubscription(boolean threadPerSubscription) {
+            this.threadPerSubscription = threadPerSubscription;
+            return this;
+        }
+
+        /**
+         * Shares the generated listener classes of another helper instead of generating them again
+         * @param listenerFactory the listener factory of the other helper
+         * @return this builder
+         */
+        Builder listenerFactory(ListenerFactory listenerFactory) {
+            this.listenerFactory = checkNotNull(listenerFactory);
+            return this;
+        }
+
+        public ReactorEventBusHelper build() {
+            return new ReactorEventBusHelper(this);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FluxSink} that retains the latest events in a ring and fans out every event to an array of subscriber sinks.
+ * Every appended event gets the next sequence number. A new subscriber takes a snapshot of the retained events and is
+ * added to the array under the lock that appends the events, and it replays the snapshot after the lock is released,
+ * so a slow subscriber does not delay posting. The live events that it receives in the meantime are buffered and
+ * propagated once the replay is over, and only the events whose sequence number is newer than the snapshot are
+ * propagated live, so it sees every event exactly once: either as part of the history or live. It is given to a single
+ * {@link ReactorCacheListener} so that all the subscribers share one copy of the history.
+ * <p>
+ * The ring starts small and grows up to {@code historySize} events, and events older than the window are dropped when
+ * an event is appended or a subscriber is added. Removing the last subscriber terminates this sink and drops the ring.
+ * </p>
+ * @param <T> the type of events that this sink retains and fans out
+ */
+final class ReplayFluxSink<T> extends AbstractEventSink<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int historySize;
+    private final long windowNanos;
+    private final Scheduler clock;
+    private final Object lock = new Object();
+
+    private volatile ReplaySubscriber<T>[] subscribers = newArray(0);
+    private Object[] events;
+    private long[] timestamps;
+    private int head;
+    private int count;
+    private long sequence;
+    private boolean terminated;
+
+    /**
+     * @param historySize the maximum number of retained events
+     * @param windowNanos the maximum age of the retained events, or a negative value to retain them regardless of age
+     * @param clock       the scheduler whose clock timestamps the events
+     */
+    ReplayFluxSink(int historySize, long windowNanos, Scheduler clock) {
+        this.historySize = historySize;
+        this.windowNanos = windowNanos;
+        this.clock = clock;
+        int capacity = Math.min(historySize, INITIAL_CAPACITY);
+        this.events = new Object[capacity];
+        this.timestamps = windowNanos < 0 ? null : new long[capacity];
+    }
+
+    /**
+     * Adds the given sink to the fan-out array and replays the retained events to it
+     * @param sink the sink to add
+     * @return {@code false} if this sink has already been terminated because its last subscriber was removed
+     */
+    boolean add(FluxSink<T> sink) {
+        Object[] history;
+        ReplaySubscriber<T> subscriber;
+        synchronized (lock) {
+            if (terminated) {
+                return false;
+            }
+            evictExpired();
+            history = new Object[count];
+            for (int i = 0; i < count; i++) {
+                history[i] = events[index(i)];
+            }
+            subscriber = new ReplaySubscriber<>(sink, sequence);
+            ReplaySubscriber<T>[] current = subscribers;
+            ReplaySubscriber<T>[] next = newArray(current.length + 1);
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = subscriber;
+            subscribers = next;
+        }
+        subscriber.replay(history);
+        return true;
+    }
+
+    /**
+     * Removes a subscriber sink from the fan-out array. The retained events are kept for the other and later
+     * subscribers, unless the removed sink was the last one, which terminates this sink and drops the retained events.
+     * @param sink the sink to remove
+     * @return {@code true} if the removed sink was the last one and this sink is now terminated
+     */
+    boolean remove(FluxSink<T> sink) {
+        synchronized (lock) {
+            ReplaySubscriber<T>[] current = subscribers;
+            int length = current.length;
+            int index = -1;
+            for (int i = 0; i < length; i++) {
+                if (current[i].sink == sink) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return false;
+            }
+            ReplaySubscriber<T>[] next = newArray(length - 1);
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, length - index - 1);
+            subscribers = next;
+            if (length > 1) {
+                return false;
+            }
+            terminated = true;
+            events = new Object[0];
+            timestamps = null;
+            head = 0;
+            count = 0;
+        }
+        cancelled();
+        return true;
+    }
+
+    int subscriberCount() {
+        return subscribers.length;
+    }
+
+    int retainedCount() {
+        synchronized (lock) {
+            evictExpired();
+            return count;
+        }
+    }
+
+    @Override
+    public void next(T event) {
+        ReplaySubscriber<T>[] current;
+        long eventSequence;
+        synchronized (lock) {
+            if (terminated) {
+                return;
+            }
+            append(event);
+            eventSequence = ++sequence;
+            current = subscribers;
+        }
+        for (ReplaySubscriber<T> subscriber : current) {
+            subscriber.next(event, eventSequence);
+        }
+    }
+
+    @Override
+    public void complete() {
+        for (ReplaySubscriber<T> subscriber : subscribers) {
+            subscriber.sink.complete();
+        }
+        terminated();
+    }
+
+    @Override
+    public void error(Throwable e) {
+        for (ReplaySubscriber<T> subscriber : subscribers) {
+            subscriber.sink.error(e);
+        }
+        terminated();
+    }
+
+    @Override
+    public long requestedFromDownstream() {
+        long requested = 0;
+        for (ReplaySubscriber<T> subscriber : subscribers) {
+            requested = Math.max(requested, subscriber.sink.requestedFromDownstream());
+        }
+        return requested;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    private void append(T event) {
+        evictExpired();
+        if (count == events.length) {
+            if (count < historySize) {
+                grow();
+            } else {
+                events[head] = null;
+                head = index(1);
+                count--;
+            }
+        }
+        int tail = index(count);
+        events[tail] = event;
+        if (timestamps != null) {
+            timestamps[tail] = clock.now(TimeUnit.NANOSECONDS);
+        }
+        count++;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min((long) events.length * 2, historySize);
+        Object[] grownEvents = new Object[capacity];
+        long[] grownTimestamps = timestamps == null ? null : new long[capacity];
+        for (int i = 0; i < count; i++) {
+            grownEvents[i] = events[index(i)];
+            if (grownTimestamps != null) {
+                grownTimestamps[i] = timestamps[index(i)];
+            }
+        }
+        events = grownEvents;
+        timestamps = grownTimestamps;
+        head = 0;
+    }
+
+    private void evictExpired() {
+        if (timestamps == null || count == 0) {
+            return;
+        }
+        long oldest = clock.now(TimeUnit.NANOSECONDS) - windowNanos;
+        while (count > 0 && timestamps[head] < oldest) {
+            events[head] = null;
+            head = index(1);
+            count--;
+        }
+    }
+
+    private int index(int offset) {
+        int index = head + offset;
+        return index >= events.length ? index - events.length : index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ReplaySubscriber<T>[] newArray(int length) {
+        return (ReplaySubscriber<T>[]) new ReplaySubscriber<?>[length];
+    }
+
+    /**
+     * A subscriber sink that buffers the live events it receives while it replays the history
+     * @param <T> the type of the events
+     */
+    private static final class ReplaySubscriber<T> {
+        private final FluxSink<T> sink;
+        private final long replayedSequence;
+        private volatile List<T> pending = new ArrayList<>();
+
+        /**
+         * @param sink             the sink of the subscriber
+         * @param replayedSequence the sequence number of the newest event of the replayed history
+         */
+        private ReplaySubscriber(FluxSink<T> sink, long replayedSequence) {
+            this.sink = sink;
+            this.replayedSequence = replayedSequence;
+        }
+
+        private void next(T event, long eventSequence) {
+            if (eventSequence <= replayedSequence) {
+                return;
+            }
+            if (pending != null) {
+                synchronized (this) {
+                    List<T> buffer = pending;
+                    if (buffer != null) {
+                        buffer.add(event);
+                        return;
+                    }
+                }
+            }
+            sink.next(event);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void replay(Object[] history) {
+            for (Object event : history) {
+                sink.next((T) event);
+            }
+            for (;;) {
+                List<T> buffered;
+                synchronized (this) {
+                    buffered = pending;
+                    pending = buffered.isEmpty() ? null : new ArrayList<>();
+                }
+                if (buffered.isEmpty()) {
+                    return;
+                }
+                for (T event : buffered) {
+                    sink.next(event);
+                }
+            }
+        }
+    }
+}
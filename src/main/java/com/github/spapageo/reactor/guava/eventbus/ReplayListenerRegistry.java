@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps a single {@link ReactorCacheListener} registered with the {@link EventBus} per event class and retention, that
+ * feeds a {@link ReplayFluxSink} shared by all the subscribers with that retention. The listener is registered when the
+ * first subscriber arrives and unregistered, together with the retained history, when the last one leaves.
+ */
+class ReplayListenerRegistry {
+    private final EventBus eventBus;
+    private final ListenerFactory listenerFactory;
+
+    private final Map<List<Object>, Entry<?>> retentionToEntry = new ConcurrentHashMap<>();
+
+    ReplayListenerRegistry(EventBus eventBus, ListenerFactory listenerFactory) {
+        this.eventBus = checkNotNull(eventBus);
+        this.listenerFactory = checkNotNull(listenerFactory);
+    }
+
+    /**
+     * Adds the given sink to the subscribers of the replay sink of the given event class and retention and replays the
+     * retained events to it, registering a listener that feeds the replay sink with the {@link EventBus} if this is the
+     * first subscriber.
+     * @param eventClass  the class of the retained events
+     * @param historySize the maximum number of retained events
+     * @param windowNanos the maximum age of the retained events, or a negative value to retain them regardless of age
+     * @param clock       the scheduler whose clock timestamps the events
+     * @param fluxSink    the sink that will receive the events
+     * @param <T>         the type of the event
+     */
+    <T> void subscribe(Class<T> eventClass, int historySize, long windowNanos, Scheduler clock, FluxSink<T> fluxSink) {
+        List<Object> retention = Arrays.asList(eventClass, historySize, windowNanos, clock);
+        for (;;) {
+            Entry<T> entry = entryFor(retention, eventClass, historySize, windowNanos, clock);
+            if (entry.replaySink.add(fluxSink)) {
+                return;
+            }
+            // The entry was terminated concurrently by its last subscriber, remove it so that a new one is created
+            retentionToEntry.remove(retention, entry);
+        }
+    }
+
+    /**
+     * Removes the given sink from the subscribers of the replay sink of the given event class and retention,
+     * unregistering the listener from the {@link EventBus} and dropping the retained events if this was the last
+     * subscriber.
+     * @param eventClass  the class of the retained events
+     * @param historySize the maximum number of retained events
+     * @param windowNanos the maximum age of the retained events, or a negative value to retain them regardless of age
+     * @param clock       the scheduler whose clock timestamps the events
+     * @param fluxSink    the sink that will no longer receive events
+     * @param <T>         the type of the event
+     */
+    @SuppressWarnings("unchecked")
+    <T> void unsubscribe(Class<T> eventClass, int historySize, long windowNanos, Scheduler clock,
+                         FluxSink<T> fluxSink) {
+        List<Object> retention = Arrays.asList(eventClass, historySize, windowNanos, clock);
+        Entry<T> entry = (Entry<T>) retentionToEntry.get(retention);
+        if (entry != null && entry.replaySink.remove(fluxSink)) {
+            retentionToEntry.remove(retention, entry);
+            eventBus.unregister(entry.listener);
+        }
+    }
+
+    int registrationCount() {
+        return retentionToEntry.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Entry<T> entryFor(List<Object> retention, Class<T> eventClass, int historySize, long windowNanos,
+                                  Scheduler clock) {
+        return (Entry<T>) retentionToEntry.computeIfAbsent(retention, key -> {
+            ReplayFluxSink<T> replaySink = new ReplayFluxSink<>(historySize, windowNanos, clock);
+            ReactorCacheListener<T> listener = listenerFactory.generateListener(eventClass).newInstance(replaySink);
+            eventBus.register(listener);
+            return new Entry<>(replaySink, listener);
+        });
+    }
+
+    private static final class Entry<T> {
+        private final ReplayFluxSink<T> replaySink;
+        private final ReactorCacheListener<T> listener;
+
+        private Entry(ReplayFluxSink<T> replaySink, ReactorCacheListener<T> listener) {
+            this.replaySink = replaySink;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decides what a thread posting to the {@link com.google.common.eventbus.EventBus} does when the ring buffer of a flux
+ * created by {@link ReactorEventBusHelper#listenForBounded(Class, int, RingBufferWaitStrategy)} is full.
+ */
+@FunctionalInterface
+public interface RingBufferWaitStrategy {
+
+    /**
+     * Invoked repeatedly by the posting thread while the ring buffer is full.
+     * @param attempt the number of times that this method has already been invoked for the current event
+     * @return {@code true} to retry inserting the event or {@code false} to give up and hand the event over to the
+     * {@link OverflowFallback} of the flux, which terminates the flux with an overflow error by default
+     */
+    boolean await(int attempt);
+
+    /**
+     * @return a strategy that retries immediately, burning CPU for the lowest latency
+     */
+    static RingBufferWaitStrategy busySpin() {
+        return attempt -> true;
+    }
+
+    /**
+     * @return a strategy that yields the posting thread between retries
+     */
+    static RingBufferWaitStrategy yielding() {
+        return attempt -> {
+            Thread.yield();
+            return true;
+        };
+    }
+
+    /**
+     * @param parkTime the time that the posting thread is parked between retries
+     * @return a strategy that parks the posting thread between retries
+     */
+    static RingBufferWaitStrategy parking(Duration parkTime) {
+        checkNotNull(parkTime);
+        checkArgument(!parkTime.isNegative() && !parkTime.isZero(), "The park time must be positive");
+        long parkNanos = parkTime.toNanos();
+        return attempt -> {
+            LockSupport.parkNanos(parkNanos);
+            return true;
+        };
+    }
+
+    /**
+     * <p>
+     * Blocks the posting thread until the subscriber consumes events and frees buffer space, so that backpressure
+     * reaches the code that posts to the {@link com.google.common.eventbus.EventBus}. The posting thread is woken up as
+     * soon as space is available and gives up once {@code timeout} has elapsed.
+     * </p>
+     * <p>
+     * A subscriber that requests more events from within the thread that posts can not free space while that thread
+     * is blocked, so such pipelines only make progress through the timeout.
+     * </p>
+     * @param timeout the maximum time that the posting thread waits for each event
+     * @return a strategy that blocks the posting thread while the buffer is full
+     */
+    static RingBufferWaitStrategy blocking(Duration timeout) {
+        checkNotNull(timeout);
+        checkArgument(!timeout.isNegative() && !timeout.isZero(), "The timeout must be positive");
+        return new BlockingWaitStrategy(timeout.toNanos());
+    }
+
+    /**
+     * @return a strategy that gives up immediately, terminating the flux with an overflow error
+     */
+    static RingBufferWaitStrategy fail() {
+        return attempt -> false;
+    }
+}
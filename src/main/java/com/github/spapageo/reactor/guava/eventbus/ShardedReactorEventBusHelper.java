@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Spreads the events over several {@link EventBus} shards by the hash of a key, so that the subscriber registries and
+ * flux sinks of a busy event class are not shared by all the posting threads. Events with equal keys are always posted
+ * to the same shard and therefore keep their relative order, while the fluxes returned by {@link #listenFor(Class)}
+ * merge the events of all the shards. The helpers of all the shards share the same generated listener classes.
+ * <p>
+ * The shards created by {@link #ShardedReactorEventBusHelper(int, int, OverflowStrategy)} each have a dispatch lane, a
+ * single daemon thread that posts the events of the shard in the order they were given to
+ * {@link #post(Object, Object)}, so the posting threads only hand the events over and the shards dispatch in
+ * parallel.
+ * A lane holds a bounded number of events waiting to be posted and applies an {@link OverflowStrategy} when a posting
+ * thread outruns it. The thread of an idle lane is released after a minute, and the lanes are shut down by
+ * {@link #close()}. Shards given to the other constructors are posted to on the posting thread, unless they are for
+ * example {@link AsyncEventBus}es.
+ * </p>
+ */
+public final class ShardedReactorEventBusHelper implements AutoCloseable {
+    private static final long LANE_KEEP_ALIVE_SECONDS = 60;
+    private static final int DEFAULT_LANE_CAPACITY = 1024;
+
+    private final ImmutableList<EventBus> shards;
+    private final ImmutableList<ThreadPoolExecutor> lanes;
+    private final ImmutableList<ReactorEventBusHelper> helpers;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a helper with {@code shardCount} {@link EventBus} shards, each with a dispatch lane of its own that holds
+     * up to 1024 events and blocks the posting thread while it is full
+     * @param shardCount the number of shards
+     */
+    public ShardedReactorEventBusHelper(int shardCount) {
+        this(shardCount, DEFAULT_LANE_CAPACITY, OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * Creates a helper with {@code shardCount} {@link EventBus} shards, each with a dispatch lane of its own that holds
+     * up to {@code laneCapacity} events waiting to be posted. When a lane is full {@link OverflowStrategy#BUFFER}
+     * blocks the posting thread until the lane has room, {@link OverflowStrategy#DROP} discards the new event,
+     * {@link OverflowStrategy#LATEST} discards the oldest waiting event and {@link OverflowStrategy#ERROR} makes
+     * {@link #post(Object, Object)} throw an {@link IllegalStateException}. {@link OverflowStrategy#IGNORE} is not
+     * supported, since the lanes cannot grow without bound.
+     * @param shardCount           the number of shards
+     * @param laneCapacity         the maximum number of events waiting to be posted to each shard
+     * @param laneOverflowStrategy what to do with an event posted to a full lane
+     */
+    public ShardedReactorEventBusHelper(int shardCount, int laneCapacity, OverflowStrategy laneOverflowStrategy) {
+        this(newShards(shardCount), newLanes(shardCount, laneCapacity, laneOverflowStrategy),
+                UnaryOperator.identity());
+    }
+
+    /**
+     * Creates a helper that spreads the events over the given shards
+     * @param shards the event buses that the events are posted to
+     */
+    public ShardedReactorEventBusHelper(List<? extends EventBus> shards) {
+        this(shards, UnaryOperator.identity());
+    }
+
+    /**
+     * Creates a helper that spreads the events over the given shards and creates the fluxes of each shard through a
+     * {@link ReactorEventBusHelper} configured by {@code helperConfigurer}
+     * @param shards           the event buses that the events are posted to
+     * @param helperConfigurer configures the {@link ReactorEventBusHelper#builder} of each shard
+     */
+    public ShardedReactorEventBusHelper(List<? extends EventBus> shards,
+                                        UnaryOperator<ReactorEventBusHelper.Builder> helperConfigurer) {
+        this(shards, null, helperConfigurer);
+    }
+
+    private ShardedReactorEventBusHelper(List<? extends EventBus> shards, List<ThreadPoolExecutor> lanes,
+                                         UnaryOperator<ReactorEventBusHelper.Builder> helperConfigurer) {
+        checkNotNull(helperConfigurer);
+        checkArgument(!shards.isEmpty(), "At least one shard is required");
+        this.shards = ImmutableList.copyOf(shards);
+        this.lanes = lanes == null ? null : ImmutableList.copyOf(lanes);
+        ImmutableList.Builder<ReactorEventBusHelper> helperBuilder = ImmutableList.builder();
+        ListenerFactory listenerFactory = null;
+        for (EventBus shard : this.shards) {
+            ReactorEventBusHelper.Builder builder =
+                    checkNotNull(helperConfigurer.apply(ReactorEventBusHelper.builder(shard)));
+            if (listenerFactory != null) {
+                builder.listenerFactory(listenerFactory);
+            }
+            ReactorEventBusHelper helper = builder.build();
+            listenerFactory = helper.listenerFactory();
+            helperBuilder.add(helper);
+        }
+        this.helpers = helperBuilder.build();
+    }
+
+    private static List<EventBus> newShards(int shardCount) {
+        checkArgument(shardCount > 0, "The shard count must be positive");
+        List<EventBus> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new EventBus("shard-" + i));
+        }
+        return shards;
+    }
+
+    private static List<ThreadPoolExecutor> newLanes(int shardCount, int laneCapacity,
+                                                     OverflowStrategy laneOverflowStrategy) {
+        checkArgument(laneCapacity > 0, "The lane capacity must be positive");
+        RejectedExecutionHandler overflowHandler = overflowHandler(checkNotNull(laneOverflowStrategy));
+        List<ThreadPoolExecutor> lanes = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, LANE_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity),
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("event-shard-" + i).build(),
+                    overflowHandler);
+            lane.allowCoreThreadTimeOut(true);
+            lanes.add(lane);
+        }
+        return lanes;
+    }
+
+    private static RejectedExecutionHandler overflowHandler(OverflowStrategy overflowStrategy) {
+        switch (overflowStrategy) {
+            case BUFFER:
+                return (task, lane) -> {
+                    if (lane.isShutdown()) {
+                        throw new RejectedExecutionException("The dispatch lane of the shard is shut down");
+                    }
+                    try {
+                        lane.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for room in the lane", e);
+                    }
+                    lane.prestartCoreThread();
+                };
+            case DROP:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case LATEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case ERROR:
+                return (task, lane) -> {
+                    throw new IllegalStateException("The dispatch lane of the shard is full");
+                };
+            default:
+                throw new IllegalArgumentException("Unsupported lane overflow strategy " + overflowStrategy);
+        }
+    }
+
+    /**
+     * Posts the event to the shard of the given key, through the dispatch lane of the shard if it has one
+     * @param key   the key that selects the shard, events with equal keys keep their relative order
+     * @param event the event to post
+     * @throws IllegalStateException if the helper is closed, or the lane of the shard is full and its overflow strategy
+     *                               is {@link OverflowStrategy#ERROR}
+     */
+    public void post(Object key, Object event) {
+        checkNotNull(event);
+        checkState(!closed, "The helper is closed");
+        int index = shardIndex(checkNotNull(key).hashCode(), shards.size());
+        EventBus shard = shards.get(index);
+        if (lanes == null) {
+            shard.post(event);
+        } else {
+            lanes.get(index).execute(() -> shard.post(event));
+        }
+    }
+
+    /**
+     * @param key the key of an event
+     * @return the shard that the events of the given key are posted to
+     */
+    public EventBus shardFor(Object key) {
+        return shards.get(shardIndex(checkNotNull(key).hashCode(), shards.size()));
+    }
+
+    /**
+     * Spreads the high bits of the hash code over the low ones, so that hash codes that differ only in their high
+     * bits, such as the ones of small floating point numbers, do not end up in the same shard
+     */
+    static int shardIndex(int hashCode, int shardCount) {
+        int spread = hashCode ^ (hashCode >>> 16);
+        return Math.floorMod(spread, shardCount);
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @return statistics about the listener classes that the helpers of the shards share
+     */
+    public ListenerCacheStats listenerCacheStats() {
+        return helpers.get(0).listenerCacheStats();
+    }
+
+    /**
+     * Creates a flux of the events of type {@code eventClass} that are posted to any of the shards. The events of the
+     * same shard, and therefore of the same key, are propagated in the order they were posted.
+     *
+     * @param eventClass the class of the events that will be propagated though the returned flux
+     * @param <T>        the type of the event
+     * @return the flux of events
+     */
+    public <T> Flux<T> listenFor(Class<T> eventClass) {
+        return listenFor(eventClass, OverflowStrategy.BUFFER);
+    }
+
+    /**
+     * Creates a flux of the events of type {@code eventClass} that are posted to any of the shards.
+     *
+     * @param eventClass       the class of the events that will be propagated though the returned flux
+     * @param overflowStrategy the overflow strategy of the flux of each shard
+     * @param <T>              the type of the event
+     * @return the flux of events
+     * @see #listenFor(Class)
+     */
+    public <T> Flux<T> listenFor(Class<T> eventClass, OverflowStrategy overflowStrategy) {
+        checkNotNull(eventClass);
+        checkNotNull(overflowStrategy);
+
+        List<Flux<T>> shardFluxes = new ArrayList<>(helpers.size());
+        for (ReactorEventBusHelper helper : helpers) {
+            shardFluxes.add(helper.listenFor(eventClass, overflowStrategy));
+        }
+        return shardFluxes.size() == 1 ? shardFluxes.get(0) : Flux.merge(shardFluxes);
+    }
+
+    /**
+     * Stops accepting events and shuts the dispatch lanes down once they have posted the events already given to them.
+     * The shards themselves and the fluxes of their events are not affected.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (lanes != null) {
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A multi-producer single-consumer queue that keeps up to a fixed number of elements in memory and spills the rest to a
+ * {@link MappedSegmentLog} through an {@link EventCodec}. Once an element has been spilled, all the following elements
+ * are spilled too until the consumer has read the spilled ones back, so elements are polled in the order they were
+ * offered. The in-memory tier is lock-free, the disk tier is guarded by a lock.
+ * @param <T> the type of the elements held in this queue
+ */
+final class SpillingQueue<T> extends AbstractQueue<T> implements Closeable {
+    private final Queue<T> memory;
+    private final MappedSegmentLog log;
+    private final EventCodec<T> codec;
+
+    private volatile boolean spilling;
+    private volatile long spilledCount;
+
+    SpillingQueue(Queue<T> memory, MappedSegmentLog log, EventCodec<T> codec) {
+        this.memory = checkNotNull(memory);
+        this.log = checkNotNull(log);
+        this.codec = checkNotNull(codec);
+    }
+
+    /**
+     * Offers an element to the in-memory tier, or spills it to disk when the in-memory tier is full or elements are
+     * already spilled. The element is only encoded once it is certain to be spilled.
+     * @param element the element to offer
+     * @return {@code false} if the element could not be written to disk
+     */
+    @Override
+    public boolean offer(T element) {
+        checkNotNull(element);
+        if (!spilling && memory.offer(element)) {
+            return true;
+        }
+        synchronized (log) {
+            if (!spilling && memory.offer(element)) {
+                return true;
+            }
+            try {
+                log.append(codec.encode(element));
+            } catch (IOException | IllegalArgumentException e) {
+                return false;
+            }
+            spilledCount = log.size();
+            spilling = true;
+            return true;
+        }
+    }
+
+    @Override
+    public T poll() {
+        T element = memory.poll();
+        if (element != null || !spilling) {
+            return element;
+        }
+        byte[] bytes;
+        synchronized (log) {
+            bytes = log.poll();
+            spilledCount = log.size();
+            if (spilledCount == 0) {
+                spilling = false;
+            }
+            if (bytes == null) {
+                return memory.poll();
+            }
+        }
+        return codec.decode(bytes);
+    }
+
+    @Override
+    public T peek() {
+        T element = memory.peek();
+        if (element != null || !spilling) {
+            return element;
+        }
+        byte[] bytes;
+        synchronized (log) {
+            bytes = log.peek();
+        }
+        return bytes == null ? memory.peek() : codec.decode(bytes);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return memory.isEmpty() && spilledCount == 0;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, memory.size() + spilledCount);
+    }
+
+    /**
+     * @return the number of elements that are currently spilled to disk
+     */
+    long spilledCount() {
+        return spilledCount;
+    }
+
+    @Override
+    public void clear() {
+        memory.clear();
+        synchronized (log) {
+            log.clear();
+            spilledCount = 0;
+            spilling = false;
+        }
+    }
+
+    /**
+     * Discards all the elements and deletes the segment files
+     */
+    @Override
+    public void close() {
+        memory.clear();
+        synchronized (log) {
+            log.close();
+            spilledCount = 0;
+            spilling = false;
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        throw new UnsupportedOperationException("The spilling queue can not be iterated");
+    }
+}
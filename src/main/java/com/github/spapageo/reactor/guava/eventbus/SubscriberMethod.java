@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeToken;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+/**
+ * A method of a listener class that is annotated with {@link Subscribe}, together with an invoker that calls it. The
+ * invoker is generated with bytecode generation when the method is accessible, so that dispatching an event is a plain
+ * virtual call, and otherwise falls back to reflection.
+ */
+final class SubscriberMethod {
+    private static final ClassValue<ImmutableList<SubscriberMethod>> LISTENER_CLASS_TO_METHODS =
+            new ClassValue<ImmutableList<SubscriberMethod>>() {
+                @Override
+                protected ImmutableList<SubscriberMethod> computeValue(Class<?> listenerClass) {
+                    return scan(listenerClass);
+                }
+            };
+
+    private final Method method;
+    private final Class<?> eventType;
+    private final boolean concurrent;
+    private final BiConsumer<Object, Object> invoker;
+
+    private SubscriberMethod(Method method) {
+        this.method = method;
+        this.eventType = Primitives.wrap(method.getParameterTypes()[0]);
+        this.concurrent = method.isAnnotationPresent(AllowConcurrentEvents.class);
+        this.invoker = invokerFor(method);
+    }
+
+    /**
+     * Returns the subscriber methods of the given listener class, including the ones declared by its super types. The
+     * methods are discovered once per class.
+     * @param listenerClass the class of the listener
+     * @return the subscriber methods
+     */
+    static List<SubscriberMethod> forListenerClass(Class<?> listenerClass) {
+        return LISTENER_CLASS_TO_METHODS.get(listenerClass);
+    }
+
+    Method method() {
+        return method;
+    }
+
+    Class<?> eventType() {
+        return eventType;
+    }
+
+    boolean isConcurrent() {
+        return concurrent;
+    }
+
+    BiConsumer<Object, Object> invoker() {
+        return invoker;
+    }
+
+    private static ImmutableList<SubscriberMethod> scan(Class<?> listenerClass) {
+        ImmutableList.Builder<SubscriberMethod> subscriberMethods = ImmutableList.builder();
+        Set<List<Object>> signatures = new HashSet<>();
+        for (Class<?> type : TypeToken.of(listenerClass).getTypes().rawTypes()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class) || method.isSynthetic()) {
+                    continue;
+                }
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                checkArgument(parameterTypes.length == 1, "Method %s has @Subscribe annotation but has %s "
+                                + "parameters. Subscriber methods must have exactly 1 parameter.",
+                        method, parameterTypes.length);
+                if (signatures.add(Arrays.asList(method.getName(), Arrays.asList(parameterTypes)))) {
+                    subscriberMethods.add(new SubscriberMethod(method));
+                }
+            }
+        }
+        return subscriberMethods.build();
+    }
+
+    private static BiConsumer<Object, Object> invokerFor(Method method) {
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return generateInvoker(method);
+        }
+        method.setAccessible(true);
+        return (target, event) -> {
+            try {
+                method.invoke(target, event);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to invoke subscriber method " + method, e);
+            } catch (InvocationTargetException e) {
+                throw sneakyThrow(e.getCause());
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> generateInvoker(Method method) {
+        DynamicType.Unloaded<BiConsumer<Object, Object>> invokerType = new ByteBuddy()
+                .subclass((Class<BiConsumer<Object, Object>>) (Class<?>) BiConsumer.class)
+                .method(named("accept"))
+                .intercept(MethodCall.invoke(method).onArgument(0).withArgument(1)
+                        .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC))
+                .make();
+        ClassLoader classLoader = GeneratedTypeLoader.classLoaderFor(method.getDeclaringClass());
+        try {
+            return GeneratedTypeLoader.load(invokerType, classLoader).newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to instantiate the invoker of " + method, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> RuntimeException sneakyThrow(Throwable throwable) throws E {
+        throw (E) throwable;
+    }
+}
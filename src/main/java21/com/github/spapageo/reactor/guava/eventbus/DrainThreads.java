@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the threads that drain the buffers of the fluxes when each subscription drains on a thread of its own. This
+ * version is used on Java 21 and later and creates virtual threads, so that a subscription costs no platform thread
+ * while it waits for events or blocks in its subscriber.
+ */
+final class DrainThreads {
+    private static final AtomicLong THREAD_COUNT = new AtomicLong();
+
+    private DrainThreads() {
+    }
+
+    /**
+     * @param name the prefix of the name of the created threads
+     * @return a factory of virtual threads
+     */
+    static ThreadFactory factory(String name) {
+        return task -> Thread.ofVirtual().name(name + "-" + THREAD_COUNT.incrementAndGet()).unstarted(task);
+    }
+
+    /**
+     * @return whether the created threads are virtual threads
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+}
@@ -21,17 +21,41 @@
  * SOFTWARE.
  */
 
+import com.github.spapageo.reactor.guava.eventbus.EventBusMetricsRecorder;
+import com.github.spapageo.reactor.guava.eventbus.EventCodec;
+import com.github.spapageo.reactor.guava.eventbus.EventMetricsSnapshot;
+import com.github.spapageo.reactor.guava.eventbus.OverflowFallback;
+import com.github.spapageo.reactor.guava.eventbus.ReactorEventBus;
 import com.github.spapageo.reactor.guava.eventbus.ReactorEventBusHelper;
+import com.github.spapageo.reactor.guava.eventbus.RingBufferWaitStrategy;
+import com.github.spapageo.reactor.guava.eventbus.ShardedReactorEventBusHelper;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.DeadEvent;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.Assert;
 import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 import reactor.test.StepVerifierOptions;
 import reactor.test.scheduler.VirtualTimeScheduler;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class IntegrationTest {
 
@@ -94,4 +118,370 @@ public class IntegrationTest {
                 .thenCancel()
                 .verify();
     }
+
+    @Test
+    public void listenFor_whenMulticast_correctlyPropagatesPostedEventsToAllFluxes() throws Exception {
+        ReactorEventBusHelper multicastHelper = ReactorEventBusHelper.builder(eventBus).multicast(true).build();
+        Flux<Integer> first = multicastHelper.listenFor(Integer.class);
+        Flux<Integer> second = multicastHelper.listenFor(Integer.class);
+
+        StepVerifier.create(Flux.merge(first, second)).then(() -> {
+            eventBus.post(0);
+            eventBus.post(1);
+        }).expectNext(0, 0, 1, 1).thenCancel().verify();
+    }
+
+    @Test
+    public void listenFor_whenMulticastFluxIsResubscribed_correctlyPropagatesPostedEvents() throws Exception {
+        ReactorEventBusHelper multicastHelper = ReactorEventBusHelper.builder(eventBus).multicast(true).build();
+        Flux<Integer> flux = multicastHelper.listenFor(Integer.class);
+
+        StepVerifier.create(flux).then(() -> eventBus.post(0)).expectNext(0).thenCancel().verify();
+        StepVerifier.create(flux).then(() -> eventBus.post(1)).expectNext(1).thenCancel().verify();
+    }
+
+    @Test
+    public void listenForBatches_correctlyPropagatesPostedEventsInBatches() throws Exception {
+        Flux<List<Integer>> batchFlux = reactorEventBusHelper.listenForBatches(Integer.class, 2, Duration.ofHours(1));
+
+        StepVerifier.create(batchFlux).then(() -> {
+            eventBus.post(0);
+            eventBus.post(1);
+            eventBus.post(2);
+            eventBus.post(3);
+        }).expectNext(Arrays.asList(0, 1), Arrays.asList(2, 3)).thenCancel().verify();
+    }
+
+    @Test
+    public void listenForBatches_whenMaxLatencyElapses_propagatesPartialBatch() throws Exception {
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        Flux<List<Integer>> batchFlux =
+                reactorEventBusHelper.listenForBatches(Integer.class, 10, Duration.ofSeconds(1), timer);
+
+        StepVerifier.create(batchFlux)
+                .then(() -> eventBus.post(0))
+                .then(() -> timer.advanceTimeBy(Duration.ofSeconds(1)))
+                .expectNext(Collections.singletonList(0))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenForBounded_correctlyPropagates2PostedEvents() throws Exception {
+        Flux<Integer> boundedFlux = reactorEventBusHelper.listenForBounded(Integer.class, 16,
+                RingBufferWaitStrategy.fail());
+
+        StepVerifier.create(boundedFlux).then(() -> {
+            eventBus.post(0);
+            eventBus.post(1);
+        }).expectNext(0, 1).thenCancel().verify();
+    }
+
+    @Test
+    public void listenForBounded_whenBufferIsFull_terminatesWithOverflowError() throws Exception {
+        Flux<Integer> boundedFlux = reactorEventBusHelper.listenForBounded(Integer.class, 2,
+                RingBufferWaitStrategy.fail());
+
+        StepVerifier.create(boundedFlux, StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    eventBus.post(0);
+                    eventBus.post(1);
+                    eventBus.post(2);
+                })
+                .thenRequest(2)
+                .expectNext(0, 1)
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify();
+    }
+
+    @Test
+    public void listenFor_whenUsingReactorEventBus_correctlyPropagatesPostedEvents() throws Exception {
+        ReactorEventBus reactorEventBus = new ReactorEventBus();
+        Flux<Integer> helperFlux = new ReactorEventBusHelper(reactorEventBus).listenFor(Integer.class);
+        Flux<Number> busFlux = reactorEventBus.listenFor(Number.class);
+
+        StepVerifier.create(Flux.<Number>merge(helperFlux, busFlux)).then(() -> {
+            reactorEventBus.post(0);
+            reactorEventBus.post(1L);
+        }).expectNext(0, 0, 1L).thenCancel().verify();
+    }
+
+    @Test
+    public void publish_postsTheElementsOfTheSourceToTheEventBus() throws Exception {
+        Flux<Integer> integerFlux = reactorEventBusHelper.listenFor(Integer.class);
+
+        StepVerifier.create(integerFlux)
+                .then(() -> ReactorEventBusHelper.publish(Flux.range(0, 3), eventBus, Schedulers.single(), 2).block())
+                .expectNext(0, 1, 2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenFor_whenKeyed_propagatesOnlyTheEventsOfTheKey() throws Exception {
+        Function<String, Integer> length = String::length;
+        Flux<String> shortWords = reactorEventBusHelper.listenFor(String.class, length, 2);
+        Flux<String> longWords = reactorEventBusHelper.listenFor(String.class, length, 5);
+
+        StepVerifier.create(shortWords.mergeWith(longWords)).then(() -> {
+            eventBus.post("ab");
+            eventBus.post("abc");
+            eventBus.post("abcde");
+        }).expectNext("ab", "abcde").thenCancel().verify();
+    }
+
+    @Test
+    public void listenFor_whenMetricsConfigured_recordsSubscriptionsAndDeliveries() throws Exception {
+        EventBusMetricsRecorder recorder = new EventBusMetricsRecorder();
+        ReactorEventBusHelper instrumentedHelper = ReactorEventBusHelper.builder(eventBus).metrics(recorder).build();
+
+        StepVerifier.create(instrumentedHelper.listenFor(Integer.class), StepVerifierOptions.create().initialRequest(1))
+                .then(() -> {
+                    eventBus.post(0);
+                    eventBus.post(1);
+                })
+                .expectNext(0)
+                .then(() -> {
+                    Assert.assertEquals(1, recorder.snapshot(Integer.class).activeSubscriptions());
+                    Assert.assertEquals(Collections.singletonList(1L), recorder.snapshot(Integer.class).queueDepths());
+                })
+                .thenCancel()
+                .verify();
+
+        EventMetricsSnapshot snapshot = recorder.snapshot(Integer.class);
+        Assert.assertEquals(1, snapshot.listenerCreations());
+        Assert.assertEquals(0, snapshot.activeSubscriptions());
+        Assert.assertEquals(2, snapshot.receivedCount());
+        Assert.assertEquals(0, snapshot.overflowCount());
+        Assert.assertEquals(1, snapshot.deliveredCount());
+        Assert.assertTrue(snapshot.queueDepths().isEmpty());
+    }
+
+    @Test
+    public void listenForConflated_whenSubscriberIsSlow_propagatesOnlyTheLatestEventOfEachKey() throws Exception {
+        Flux<String> conflatedFlux = reactorEventBusHelper.listenForConflated(String.class, event -> event.charAt(0));
+
+        StepVerifier.create(conflatedFlux, StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    eventBus.post("a1");
+                    eventBus.post("b1");
+                    eventBus.post("a2");
+                })
+                .thenRequest(3)
+                .expectNext("a2", "b1")
+                .then(() -> eventBus.post("b2"))
+                .expectNext("b2")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenForBlocking_whenTimeoutElapses_appliesTheFallback() throws Exception {
+        Flux<Integer> blockingFlux = reactorEventBusHelper.listenForBlocking(Integer.class, 2, Duration.ofMillis(10),
+                OverflowFallback.error());
+
+        StepVerifier.create(blockingFlux, StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    eventBus.post(0);
+                    eventBus.post(1);
+                    eventBus.post(2);
+                })
+                .thenRequest(2)
+                .expectNext(0, 1)
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify();
+    }
+
+    @Test
+    public void listenForSpilling_whenSubscriberIsSlow_propagatesSpilledEventsInOrder() throws Exception {
+        Path directory = Files.createTempDirectory("spill");
+        EventCodec<Integer> codec = new EventCodec<Integer>() {
+            @Override
+            public byte[] encode(Integer event) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(event).array();
+            }
+
+            @Override
+            public Integer decode(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getInt();
+            }
+        };
+        Flux<Integer> spillingFlux = reactorEventBusHelper.listenForSpilling(Integer.class, 2, directory, 64, codec);
+
+        StepVerifier.create(spillingFlux, StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        eventBus.post(i);
+                    }
+                })
+                .thenRequest(100)
+                .expectNextSequence(() -> IntStream.range(0, 100).iterator())
+                .thenCancel()
+                .verify();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Assert.assertEquals(0, files.count());
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void listenFor_whenRegistrationIsLazy_receivesOnlyEventsPostedAfterTheFirstRequest() throws Exception {
+        ReactorEventBusHelper lazyHelper = ReactorEventBusHelper.builder(eventBus).lazyRegistration(true).build();
+
+        StepVerifier.create(lazyHelper.listenFor(Integer.class), StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> eventBus.post(0))
+                .thenRequest(1)
+                .then(() -> eventBus.post(1))
+                .expectNext(1)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenFor_whenIdleTimeoutElapses_unregistersUntilTheNextRequest() throws Exception {
+        VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+        ReactorEventBusHelper idleHelper = ReactorEventBusHelper.builder(eventBus)
+                .idleTimeout(Duration.ofSeconds(1), timer)
+                .build();
+
+        StepVerifier.create(idleHelper.listenFor(Integer.class), StepVerifierOptions.create().initialRequest(1))
+                .then(() -> eventBus.post(0))
+                .expectNext(0)
+                .then(() -> {
+                    timer.advanceTimeBy(Duration.ofSeconds(1));
+                    eventBus.post(1);
+                })
+                .thenRequest(1)
+                .then(() -> eventBus.post(2))
+                .expectNext(2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenForAny_propagatesEventsOfAllTheGivenTypesInPostOrderOnce() throws Exception {
+        Flux<Object> anyFlux = reactorEventBusHelper.listenForAny(Integer.class, String.class, Number.class);
+
+        StepVerifier.create(anyFlux).then(() -> {
+            eventBus.post(0);
+            eventBus.post("a");
+            eventBus.post(1L);
+            eventBus.post('c');
+        }).expectNext(0, "a", 1L).thenCancel().verify();
+    }
+
+    @Test
+    public void listenFor_whenFusedWithPublishOn_propagatesAllPostedEventsInOrder() throws Exception {
+        Flux<Integer> integerFlux = reactorEventBusHelper.listenFor(Integer.class)
+                .publishOn(Schedulers.single())
+                .map(i -> i * 2);
+
+        StepVerifier.create(integerFlux).then(() -> {
+            for (int i = 0; i < 1000; i++) {
+                eventBus.post(i);
+            }
+        }).expectNextSequence(() -> IntStream.range(0, 1000).map(i -> i * 2).iterator()).thenCancel().verify();
+    }
+
+    @Test
+    public void shardedListenFor_keepsTheOrderOfTheEventsOfEachKey() throws Exception {
+        ShardedReactorEventBusHelper shardedHelper = new ShardedReactorEventBusHelper(4);
+        Flux<Integer> evenFlux = shardedHelper.listenFor(Integer.class).filter(i -> i % 2 == 0);
+
+        StepVerifier.create(evenFlux).then(() -> {
+            for (int i = 0; i < 100; i++) {
+                shardedHelper.post(i % 2, i);
+            }
+        }).expectNextSequence(() -> IntStream.range(0, 50).map(i -> i * 2).iterator()).thenCancel().verify();
+    }
+
+    @Test
+    public void listenForWithReplay_propagatesTheHistoryAndThenTheLiveEventsToLateSubscribers() throws Exception {
+        Flux<Integer> replayFlux = reactorEventBusHelper.listenForWithReplay(Integer.class, 2);
+        Disposable firstSubscription = replayFlux.subscribe();
+        eventBus.post(0);
+        eventBus.post(1);
+        eventBus.post(2);
+
+        StepVerifier.create(replayFlux)
+                .expectNext(1, 2)
+                .then(() -> eventBus.post(3))
+                .expectNext(3)
+                .thenCancel()
+                .verify();
+        StepVerifier.create(replayFlux).expectNext(2, 3).thenCancel().verify();
+        firstSubscription.dispose();
+
+        StepVerifier.create(replayFlux)
+                .then(() -> eventBus.post(4))
+                .expectNext(4)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenFor_whenThreadPerSubscription_doesNotBlockThePosterOnABlockedSubscriber() throws Exception {
+        ReactorEventBusHelper drainingHelper = ReactorEventBusHelper.builder(eventBus)
+                .threadPerSubscription(true)
+                .build();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> deliveryThreads = new CopyOnWriteArrayList<>();
+        Flux<Integer> blockingFlux = drainingHelper.listenFor(Integer.class).doOnNext(i -> {
+            deliveryThreads.add(Thread.currentThread().getName());
+            Uninterruptibles.awaitUninterruptibly(release);
+        });
+
+        StepVerifier.create(blockingFlux)
+                .then(() -> {
+                    eventBus.post(0);
+                    eventBus.post(1);
+                    release.countDown();
+                })
+                .expectNext(0, 1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        Assert.assertEquals(2, deliveryThreads.size());
+        Assert.assertTrue(deliveryThreads.get(0).startsWith("event-drain-Integer-"));
+    }
+
+    @Test
+    public void listenForPrioritized_deliversHighPriorityEventsAheadOfTheBacklog() throws Exception {
+        Flux<Object> prioritizedFlux = reactorEventBusHelper.listenForPrioritized(
+                ImmutableMap.of(String.class, 1, Integer.class, 0), 16, 1000);
+
+        StepVerifier.create(prioritizedFlux, StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    eventBus.post(0);
+                    eventBus.post(1);
+                    eventBus.post("shutdown");
+                })
+                .thenRequest(3)
+                .expectNext("shutdown", 0, 1)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void listenFor_whenBusMatchesExactTypes_doesNotPropagateEventsOfSubTypes() throws Exception {
+        ReactorEventBus exactEventBus = new ReactorEventBus("exact", ReactorEventBus.Ordering.IMMEDIATE,
+                ReactorEventBus.TypeMatching.EXACT);
+        ReactorEventBusHelper exactHelper = new ReactorEventBusHelper(exactEventBus);
+
+        StepVerifier.create(Flux.merge(exactHelper.listenFor(Object.class), exactHelper.listenFor(Integer.class)))
+                .then(() -> {
+                    exactEventBus.post(0);
+                    exactEventBus.post(1);
+                })
+                .expectNext(0, 1)
+                .thenCancel()
+                .verify();
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingFluxSinkTest {
+
+    @Mock
+    private FluxSink<List<String>> downstream;
+
+    private VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+    private BatchingFluxSink<String> batchingFluxSink;
+
+    @Before
+    public void setUp() throws Exception {
+        batchingFluxSink = new BatchingFluxSink<>(downstream, 2, Duration.ofSeconds(1), timer);
+    }
+
+    @Test
+    public void next_whenBatchIsFull_propagatesTheBatch() throws Exception {
+        batchingFluxSink.next("a");
+        batchingFluxSink.next("b");
+        batchingFluxSink.next("c");
+
+        verify(downstream).next(Arrays.asList("a", "b"));
+        verify(downstream, times(1)).next(any());
+    }
+
+    @Test
+    public void next_whenMaxLatencyElapses_propagatesThePartialBatch() throws Exception {
+        batchingFluxSink.next("a");
+        timer.advanceTimeBy(Duration.ofMillis(999));
+        verify(downstream, never()).next(any());
+
+        timer.advanceTimeBy(Duration.ofMillis(1));
+        verify(downstream).next(Collections.singletonList("a"));
+    }
+
+    @Test
+    public void next_whenBatchIsFullBeforeMaxLatency_doesNotPropagateAnEmptyBatchLater() throws Exception {
+        batchingFluxSink.next("a");
+        batchingFluxSink.next("b");
+        timer.advanceTimeBy(Duration.ofSeconds(1));
+
+        verify(downstream, times(1)).next(any());
+    }
+
+    @Test
+    public void next_whenBatchStartsAfterAnEarlierFullBatch_propagatesItAfterItsOwnMaxLatency() throws Exception {
+        batchingFluxSink.next("a");
+        batchingFluxSink.next("b");
+        timer.advanceTimeBy(Duration.ofMillis(500));
+        batchingFluxSink.next("c");
+
+        timer.advanceTimeBy(Duration.ofMillis(500));
+        verify(downstream, never()).next(Collections.singletonList("c"));
+
+        timer.advanceTimeBy(Duration.ofMillis(500));
+        verify(downstream).next(Collections.singletonList("c"));
+    }
+
+    @Test
+    public void next_whenBatchGetsFullWhileTheDueBatchIsPropagated_propagatesTheBatchesInOrder() throws Exception {
+        CountDownLatch propagating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<String>> propagated = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<String> batch = invocation.getArgument(0);
+            if (batch.contains("a")) {
+                propagating.countDown();
+                release.await();
+            }
+            propagated.add(batch);
+            return null;
+        }).when(downstream).next(any());
+
+        batchingFluxSink.next("a");
+        Thread flusher = new Thread(() -> timer.advanceTimeBy(Duration.ofSeconds(1)));
+        flusher.start();
+        propagating.await();
+        batchingFluxSink.next("b");
+        batchingFluxSink.next("c");
+        release.countDown();
+        flusher.join();
+
+        assertEquals(Arrays.asList(Collections.singletonList("a"), Arrays.asList("b", "c")), propagated);
+    }
+
+    @Test
+    public void dispose_dropsThePendingBatch() throws Exception {
+        batchingFluxSink.next("a");
+        batchingFluxSink.dispose();
+        batchingFluxSink.next("b");
+        timer.advanceTimeBy(Duration.ofSeconds(1));
+
+        verify(downstream, never()).next(any());
+    }
+
+    @Test
+    public void complete_propagatesThePendingBatchBeforeCompleting() throws Exception {
+        batchingFluxSink.next("a");
+
+        batchingFluxSink.complete();
+        timer.advanceTimeBy(Duration.ofSeconds(1));
+
+        InOrder inOrder = inOrder(downstream);
+        inOrder.verify(downstream).next(Collections.singletonList("a"));
+        inOrder.verify(downstream).complete();
+        verify(downstream, times(1)).next(any());
+    }
+
+    @Test
+    public void onDispose_registersTheCallbackWithTheDownstreamSink() throws Exception {
+        Disposable onDispose = mock(Disposable.class);
+
+        batchingFluxSink.onDispose(onDispose);
+
+        verify(downstream).onDispose(onDispose);
+    }
+}
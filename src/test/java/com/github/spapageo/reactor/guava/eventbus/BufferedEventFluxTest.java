@@ -0,0 +1,268 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.Fuseable;
+import reactor.core.publisher.FluxSink;
+import reactor.test.StepVerifier;
+import reactor.test.StepVerifierOptions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BufferedEventFluxTest {
+
+    private final AtomicReference<FluxSink<String>> registeredSink = new AtomicReference<>();
+    private final AtomicBoolean unregistered = new AtomicBoolean();
+
+    private BufferedEventFlux<String> bufferedEventFlux(RingBufferWaitStrategy waitStrategy) {
+        return bufferedEventFlux(waitStrategy, OverflowFallback.error());
+    }
+
+    private BufferedEventFlux<String> bufferedEventFlux(RingBufferWaitStrategy waitStrategy,
+                                                        OverflowFallback<String> overflowFallback) {
+        return new BufferedEventFlux<>(sink -> {
+            registeredSink.set(sink);
+            return () -> unregistered.set(true);
+        }, () -> new MpscRingBuffer<>(2), waitStrategy, overflowFallback);
+    }
+
+    @Test
+    public void subscribe_propagatesEventsOfTheRegisteredSink() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail()))
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                })
+                .expectNext("a", "b")
+                .thenCancel()
+                .verify();
+
+        assertTrue(unregistered.get());
+    }
+
+    @Test
+    public void subscribe_whenThereIsNoDemand_buffersEventsUntilRequested() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail()), StepVerifierOptions.create()
+                .initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                })
+                .thenRequest(2)
+                .expectNext("a", "b")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void subscribe_whenBufferIsFullAndStrategyFails_terminatesWithOverflowError() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail()), StepVerifierOptions.create()
+                .initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                    registeredSink.get().next("c");
+                })
+                .thenRequest(2)
+                .expectNext("a", "b")
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify();
+
+        assertTrue(unregistered.get());
+    }
+
+    @Test
+    public void subscribe_whenBufferIsFull_retriesWhileTheStrategyAllows() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RingBufferWaitStrategy waitStrategy = attempt -> attempts.incrementAndGet() < 3;
+
+        StepVerifier.create(bufferedEventFlux(waitStrategy), StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                    registeredSink.get().next("c");
+                })
+                .thenRequest(3)
+                .expectNext("a", "b")
+                .expectErrorMatches(Exceptions::isOverflow)
+                .verify();
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void subscribe_whenBufferIsFullAndFallbackDrops_discardsTheEventAndContinues() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail(), OverflowFallback.drop()),
+                StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                    registeredSink.get().next("c");
+                })
+                .thenRequest(3)
+                .expectNext("a", "b")
+                .then(() -> registeredSink.get().next("d"))
+                .expectNext("d")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void subscribe_whenBufferIsFullAndFallbackSpills_handsTheEventToTheSpillway() throws Exception {
+        List<String> spilled = new CopyOnWriteArrayList<>();
+
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail(), OverflowFallback.spill(spilled::add)),
+                StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                    registeredSink.get().next("c");
+                })
+                .thenRequest(2)
+                .expectNext("a", "b")
+                .thenCancel()
+                .verify();
+
+        assertEquals(Collections.singletonList("c"), spilled);
+    }
+
+    @Test
+    public void subscribe_whenBufferIsFullAndStrategyBlocks_blocksThePosterUntilSpaceIsFreed() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        AtomicReference<Subscription> subscription = new AtomicReference<>();
+        bufferedEventFlux(RingBufferWaitStrategy.blocking(Duration.ofSeconds(10))).subscribe(new Subscriber<String>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(String event) {
+                received.add(event);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        CountDownLatch posted = new CountDownLatch(1);
+        Thread poster = new Thread(() -> {
+            registeredSink.get().next("a");
+            registeredSink.get().next("b");
+            registeredSink.get().next("c");
+            posted.countDown();
+        });
+
+        poster.start();
+
+        assertFalse(posted.await(100, TimeUnit.MILLISECONDS));
+        subscription.get().request(3);
+        assertTrue(posted.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a", "b", "c"), received);
+    }
+
+    @Test
+    public void subscribe_whenBlockingTimesOut_handsTheEventToTheFallback() throws Exception {
+        List<String> spilled = new CopyOnWriteArrayList<>();
+
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.blocking(Duration.ofMillis(10)),
+                OverflowFallback.spill(spilled::add)), StepVerifierOptions.create().initialRequest(0))
+                .expectSubscription()
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                    registeredSink.get().next("c");
+                })
+                .thenRequest(3)
+                .expectNext("a", "b")
+                .thenCancel()
+                .verify();
+
+        assertEquals(Collections.singletonList("c"), spilled);
+    }
+
+    @Test
+    public void subscribe_whenAsyncFusionIsRequested_letsTheSubscriberPollTheBuffer() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail()))
+                .expectFusion(Fuseable.ASYNC)
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().next("b");
+                })
+                .expectNext("a", "b")
+                .thenCancel()
+                .verify();
+
+        assertTrue(unregistered.get());
+    }
+
+    @Test
+    public void subscribe_whenFusedAndSinkErrors_propagatesTheErrorAfterTheBufferedEvents() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail()))
+                .expectFusion(Fuseable.ASYNC)
+                .then(() -> {
+                    registeredSink.get().next("a");
+                    registeredSink.get().error(new IllegalStateException());
+                })
+                .expectNext("a")
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertTrue(unregistered.get());
+    }
+
+    @Test
+    public void subscribe_whenSyncFusionIsRequested_rejectsFusion() throws Exception {
+        StepVerifier.create(bufferedEventFlux(RingBufferWaitStrategy.fail()))
+                .expectFusion(Fuseable.SYNC, Fuseable.NONE)
+                .then(() -> registeredSink.get().next("a"))
+                .expectNext("a")
+                .thenCancel()
+                .verify();
+    }
+}
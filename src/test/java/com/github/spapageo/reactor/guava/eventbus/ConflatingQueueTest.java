@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConflatingQueueTest {
+
+    private ConflatingQueue<String> conflatingQueue = new ConflatingQueue<>(event -> event.charAt(0));
+
+    @Test
+    public void poll_returnsTheLatestElementOfEachKeyInTheOrderTheKeysBecameDirty() throws Exception {
+        conflatingQueue.offer("a1");
+        conflatingQueue.offer("b1");
+        conflatingQueue.offer("a2");
+        conflatingQueue.offer("c1");
+        conflatingQueue.offer("b2");
+
+        assertEquals(3, conflatingQueue.size());
+        assertEquals("a2", conflatingQueue.peek());
+        assertEquals("a2", conflatingQueue.poll());
+        assertEquals("b2", conflatingQueue.poll());
+        assertEquals("c1", conflatingQueue.poll());
+        assertNull(conflatingQueue.poll());
+        assertTrue(conflatingQueue.isEmpty());
+    }
+
+    @Test
+    public void offer_afterKeyWasPolled_marksTheKeyDirtyAgain() throws Exception {
+        conflatingQueue.offer("a1");
+        conflatingQueue.offer("b1");
+        assertEquals("a1", conflatingQueue.poll());
+
+        conflatingQueue.offer("a2");
+
+        assertEquals("b1", conflatingQueue.poll());
+        assertEquals("a2", conflatingQueue.poll());
+    }
+
+    @Test
+    public void offer_whenKeyIsNull_conflatesTheElementsTogether() throws Exception {
+        ConflatingQueue<String> nullKeyQueue = new ConflatingQueue<>(event -> null);
+
+        nullKeyQueue.offer("a");
+        nullKeyQueue.offer("b");
+
+        assertEquals("b", nullKeyQueue.poll());
+        assertNull(nullKeyQueue.poll());
+    }
+
+    @Test
+    public void clear_removesAllPendingElements() throws Exception {
+        conflatingQueue.offer("a1");
+        conflatingQueue.offer("b1");
+
+        conflatingQueue.clear();
+
+        assertTrue(conflatingQueue.isEmpty());
+        assertNull(conflatingQueue.poll());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.FluxSink;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DemandDrivenSinkTest {
+
+    @Mock
+    private FluxSink<String> downstream;
+
+    private final AtomicInteger registrations = new AtomicInteger();
+    private final AtomicInteger unregistrations = new AtomicInteger();
+    private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+    private DemandDrivenSink<String> demandDrivenSink(long idleNanos) {
+        return new DemandDrivenSink<>(downstream, sink -> {
+            registrations.incrementAndGet();
+            return unregistrations::incrementAndGet;
+        }, idleNanos, timer);
+    }
+
+    @Test
+    public void start_whenLazy_waitsForTheFirstRequest() throws Exception {
+        DemandDrivenSink<String> sink = demandDrivenSink(-1);
+
+        sink.start(true);
+        assertFalse(sink.isRegistered());
+
+        sink.request();
+        sink.request();
+        assertTrue(sink.isRegistered());
+        assertEquals(1, registrations.get());
+    }
+
+    @Test
+    public void start_whenNotLazy_registersImmediately() throws Exception {
+        DemandDrivenSink<String> sink = demandDrivenSink(-1);
+
+        sink.start(false);
+
+        assertTrue(sink.isRegistered());
+    }
+
+    @Test
+    public void next_whenDemandIsExhaustedForTheIdlePeriod_unregisters() throws Exception {
+        DemandDrivenSink<String> sink = demandDrivenSink(TimeUnit.SECONDS.toNanos(1));
+        sink.start(true);
+        sink.request();
+
+        sink.next("event");
+        timer.advanceTimeBy(Duration.ofSeconds(1));
+
+        verify(downstream).next("event");
+        assertFalse(sink.isRegistered());
+        assertEquals(1, unregistrations.get());
+
+        sink.request();
+        assertTrue(sink.isRegistered());
+        assertEquals(2, registrations.get());
+    }
+
+    @Test
+    public void request_beforeTheIdlePeriodElapses_keepsTheRegistration() throws Exception {
+        DemandDrivenSink<String> sink = demandDrivenSink(TimeUnit.SECONDS.toNanos(1));
+        sink.start(true);
+        sink.request();
+
+        sink.next("event");
+        timer.advanceTimeBy(Duration.ofMillis(500));
+        sink.request();
+        timer.advanceTimeBy(Duration.ofSeconds(1));
+
+        assertTrue(sink.isRegistered());
+        assertEquals(0, unregistrations.get());
+    }
+
+    @Test
+    public void dispose_unregistersAndPreventsFurtherRegistrations() throws Exception {
+        DemandDrivenSink<String> sink = demandDrivenSink(-1);
+        sink.start(false);
+
+        sink.dispose();
+        sink.request();
+
+        assertTrue(sink.isDisposed());
+        assertFalse(sink.isRegistered());
+        assertEquals(1, unregistrations.get());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.Collections;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventBusMetricsRecorderTest {
+
+    private EventBusMetricsRecorder recorder = new EventBusMetricsRecorder();
+
+    @Test
+    public void snapshot_reflectsRecordedActivity() throws Exception {
+        recorder.listenerCreated(String.class, 100);
+        recorder.subscribed(String.class);
+        recorder.subscribed(String.class);
+        recorder.disposed(String.class);
+        recorder.eventReceived(String.class);
+        recorder.eventReceived(String.class);
+        recorder.eventOverflowed(String.class, OverflowStrategy.DROP);
+        recorder.eventDelivered(String.class, 10);
+
+        EventMetricsSnapshot snapshot = recorder.snapshot(String.class);
+
+        assertEquals(1, snapshot.listenerCreations());
+        assertEquals(100, snapshot.listenerCreationNanos());
+        assertEquals(1, snapshot.activeSubscriptions());
+        assertEquals(2, snapshot.receivedCount());
+        assertEquals(1, snapshot.overflowCount());
+        assertEquals(1, snapshot.deliveredCount());
+        assertEquals(1, snapshot.pendingCount());
+        assertEquals(10, snapshot.latencyNanosAtPercentile(50));
+    }
+
+    @Test
+    public void snapshot_readsTheQueueDepthGaugesUntilTheyAreRemoved() throws Exception {
+        LongSupplier firstQueue = () -> 3;
+        LongSupplier secondQueue = () -> 5;
+        recorder.queueAdded(String.class, firstQueue);
+        recorder.queueAdded(String.class, secondQueue);
+        recorder.queueRemoved(String.class, firstQueue);
+
+        assertEquals(Collections.singletonList(5L), recorder.snapshot(String.class).queueDepths());
+    }
+
+    @Test
+    public void snapshots_containsEveryRecordedEventClass() throws Exception {
+        recorder.subscribed(String.class);
+        recorder.subscribed(Integer.class);
+
+        assertEquals(2, recorder.snapshots().size());
+        assertEquals(1, recorder.snapshots().get(Integer.class).activeSubscriptions());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentedFluxSinkTest {
+
+    @Mock
+    private FluxSink<Object> downstream;
+
+    @Mock
+    private EventBusMetrics metrics;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    @Test
+    public void next_whenDownstreamHasDemand_reportsReceptionAndDeliversTimedEvent() throws Exception {
+        when(metrics.recordsLatency()).thenReturn(true);
+        when(downstream.requestedFromDownstream()).thenReturn(1L);
+        InstrumentedFluxSink<String> sink = newSink(OverflowStrategy.DROP);
+
+        sink.next("event");
+
+        ArgumentCaptor<Object> received = ArgumentCaptor.forClass(Object.class);
+        verify(downstream).next(received.capture());
+        verify(metrics).eventReceived(String.class);
+        verify(metrics, never()).eventOverflowed(String.class, OverflowStrategy.DROP);
+        assertEquals(1, queueDepth.get());
+
+        assertEquals("event", InstrumentedFluxSink.deliver(received.getValue(), String.class, metrics, queueDepth));
+        verify(metrics).eventDelivered(eq(String.class), anyLong());
+        assertEquals(0, queueDepth.get());
+    }
+
+    @Test
+    public void next_whenLatencyIsNotRecorded_passesTheEventItself() throws Exception {
+        when(downstream.requestedFromDownstream()).thenReturn(1L);
+        InstrumentedFluxSink<String> sink = newSink(OverflowStrategy.BUFFER);
+
+        sink.next("event");
+
+        verify(downstream).next("event");
+        assertEquals("event", InstrumentedFluxSink.deliver("event", String.class, metrics, queueDepth));
+        verify(metrics).eventDelivered(String.class, 0);
+    }
+
+    @Test
+    public void next_whenDropStrategyHasNoDemand_reportsOverflow() throws Exception {
+        InstrumentedFluxSink<String> sink = newSink(OverflowStrategy.DROP);
+
+        sink.next("event");
+
+        verify(metrics).eventOverflowed(String.class, OverflowStrategy.DROP);
+        assertEquals(0, queueDepth.get());
+    }
+
+    @Test
+    public void next_whenBufferStrategyHasNoDemand_queuesWithoutReportingOverflow() throws Exception {
+        InstrumentedFluxSink<String> sink = newSink(OverflowStrategy.BUFFER);
+
+        sink.next("first");
+        sink.next("second");
+
+        verify(metrics, never()).eventOverflowed(any(), any());
+        assertEquals(2, queueDepth.get());
+    }
+
+    @Test
+    public void next_whenLatestStrategyHasNoDemand_reportsOverflowOnlyWhenItReplacesAnEvent() throws Exception {
+        InstrumentedFluxSink<String> sink = newSink(OverflowStrategy.LATEST);
+
+        sink.next("first");
+        verify(metrics, never()).eventOverflowed(any(), any());
+
+        sink.next("second");
+        verify(metrics).eventOverflowed(String.class, OverflowStrategy.LATEST);
+        assertEquals(1, queueDepth.get());
+    }
+
+    private InstrumentedFluxSink<String> newSink(OverflowStrategy overflowStrategy) {
+        return new InstrumentedFluxSink<>(String.class, downstream, overflowStrategy, metrics, queueDepth);
+    }
+}
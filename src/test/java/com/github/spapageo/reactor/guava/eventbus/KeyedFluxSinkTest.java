@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeyedFluxSinkTest {
+
+    @Mock
+    private FluxSink<String> firstSink;
+
+    @Mock
+    private FluxSink<String> secondSink;
+
+    private KeyedFluxSink<String, Character> keyedFluxSink = new KeyedFluxSink<>(event -> event.charAt(0));
+
+    @Test
+    public void next_propagatesEventOnlyToTheSubscribersOfItsKey() throws Exception {
+        keyedFluxSink.add('a', firstSink);
+        keyedFluxSink.add('b', secondSink);
+
+        keyedFluxSink.next("apple");
+        keyedFluxSink.next("cherry");
+
+        verify(firstSink).next("apple");
+        verifyZeroInteractions(secondSink);
+    }
+
+    @Test
+    public void remove_whenLastSubscriberOfKeyIsRemoved_dropsTheKey() throws Exception {
+        keyedFluxSink.add('a', firstSink);
+        keyedFluxSink.add('b', secondSink);
+
+        assertFalse(keyedFluxSink.remove('a', firstSink));
+        keyedFluxSink.next("apple");
+
+        assertEquals(1, keyedFluxSink.keyCount());
+        assertEquals(1, keyedFluxSink.subscriberCount());
+        verify(firstSink, never()).next(anyString());
+    }
+
+    @Test
+    public void remove_whenLastSubscriberIsRemoved_terminatesTheSink() throws Exception {
+        keyedFluxSink.add('a', firstSink);
+
+        assertTrue(keyedFluxSink.remove('a', firstSink));
+
+        assertTrue(keyedFluxSink.isCancelled());
+        assertFalse(keyedFluxSink.add('a', secondSink));
+    }
+
+    @Test
+    public void next_whenKeyIsNull_doesNotPropagateEvent() throws Exception {
+        KeyedFluxSink<String, String> nullKeySink = new KeyedFluxSink<>(event -> null);
+        nullKeySink.add("a", firstSink);
+
+        nullKeySink.next("apple");
+
+        verifyZeroInteractions(firstSink);
+    }
+
+    @Test
+    public void complete_completesTheSubscribersOfAllKeys() throws Exception {
+        keyedFluxSink.add('a', firstSink);
+        keyedFluxSink.add('b', secondSink);
+
+        keyedFluxSink.complete();
+
+        verify(firstSink).complete();
+        verify(secondSink).complete();
+    }
+
+    @Test
+    public void remove_whenLastSubscriberIsRemoved_runsTheCancelCallback() throws Exception {
+        Disposable onCancel = mock(Disposable.class);
+        keyedFluxSink.onCancel(onCancel);
+        keyedFluxSink.add('a', firstSink);
+
+        keyedFluxSink.remove('a', firstSink);
+
+        verify(onCancel).dispose();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.FluxSink;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KeyedListenerRegistryTest {
+
+    private static final Function<String, Integer> LENGTH = String::length;
+
+    @Mock
+    private EventBus eventBus;
+
+    @Mock
+    private FluxSink<String> firstSink;
+
+    @Mock
+    private FluxSink<String> secondSink;
+
+    private KeyedListenerRegistry keyedListenerRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        keyedListenerRegistry = new KeyedListenerRegistry(eventBus, new ListenerFactory());
+    }
+
+    @Test
+    public void subscribe_whenGivenTwoKeysOfTheSameExtractor_registersASingleListener() throws Exception {
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 1, firstSink);
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 2, secondSink);
+
+        verify(eventBus, times(1)).register(any(Object.class));
+        assertEquals(1, keyedListenerRegistry.registrationCount());
+        assertEquals(2, keyedListenerRegistry.subscriberCount(String.class, LENGTH));
+    }
+
+    @Test
+    public void subscribe_whenGivenDifferentExtractors_registersAListenerPerExtractor() throws Exception {
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 1, firstSink);
+        keyedListenerRegistry.subscribe(String.class, String::hashCode, 1, secondSink);
+
+        verify(eventBus, times(2)).register(any(Object.class));
+        assertEquals(2, keyedListenerRegistry.registrationCount());
+    }
+
+    @Test
+    public void unsubscribe_whenLastSinkLeaves_unregistersTheListener() throws Exception {
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 1, firstSink);
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 2, secondSink);
+
+        keyedListenerRegistry.unsubscribe(String.class, LENGTH, 1, firstSink);
+        verify(eventBus, never()).unregister(any(Object.class));
+
+        keyedListenerRegistry.unsubscribe(String.class, LENGTH, 2, secondSink);
+        verify(eventBus).unregister(any(Object.class));
+        assertEquals(0, keyedListenerRegistry.registrationCount());
+    }
+
+    @Test
+    public void subscribe_afterLastSinkLeft_registersANewListener() throws Exception {
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 1, firstSink);
+        keyedListenerRegistry.unsubscribe(String.class, LENGTH, 1, firstSink);
+
+        keyedListenerRegistry.subscribe(String.class, LENGTH, 1, secondSink);
+
+        verify(eventBus, times(2)).register(any(Object.class));
+        assertEquals(1, keyedListenerRegistry.subscriberCount(String.class, LENGTH));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    @Test
+    public void indexOf_whenGivenSmallValues_countsThemExactly() throws Exception {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.lowestValueAt(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    public void indexOf_whenGivenLargeValues_keepsTheirPrecision() throws Exception {
+        for (long value = 64; value > 0 && value < Long.MAX_VALUE / 2; value = value * 3 / 2) {
+            long lowestValue = LatencyHistogram.lowestValueAt(LatencyHistogram.indexOf(value));
+            assertTrue(lowestValue <= value);
+            assertTrue((value - lowestValue) <= value / 32);
+        }
+        LatencyHistogram.lowestValueAt(LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void valueAtPercentile_returnsTheValueOfTheGivenRank() throws Exception {
+        for (long value = 1; value <= 100; value++) {
+            latencyHistogram.record(value);
+        }
+
+        LatencyHistogram.Snapshot snapshot = latencyHistogram.snapshot();
+
+        assertEquals(100, snapshot.totalCount());
+        assertEquals(50, snapshot.valueAtPercentile(50));
+        assertEquals(98, snapshot.valueAtPercentile(99));
+        assertEquals(1, snapshot.valueAtPercentile(0));
+    }
+
+    @Test
+    public void valueAtPercentile_whenEmpty_returnsZero() throws Exception {
+        assertEquals(0, latencyHistogram.snapshot().valueAtPercentile(99));
+    }
+}
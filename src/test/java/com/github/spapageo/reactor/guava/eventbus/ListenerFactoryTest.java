@@ -25,6 +25,8 @@ package com.github.spapageo.reactor.guava.eventbus;
 
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -32,6 +34,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import reactor.core.publisher.FluxSink;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.verify;
@@ -44,6 +48,9 @@ public class ListenerFactoryTest {
     @Mock
     private FluxSink<String> fluxSink;
 
+    @Mock
+    private FluxSink<Object> objectFluxSink;
+
     private ListenerFactory listenerFactory = new ListenerFactory();
 
     @Test
@@ -60,20 +67,162 @@ public class ListenerFactoryTest {
     }
 
     @Test
-    public void instantiateListener_generatesMethodThatInvokesListen()
+    public void generateListener_generatesMethodThatInvokesFluxSinkNext()
             throws Exception {
-        Class<? extends ReactorCacheListener<String>> listenerClass = listenerFactory.generateListenerClass(String.class);
-        ReactorCacheListener<String> reactorCacheListener = listenerFactory.instantiatedListener(fluxSink, listenerClass);
+        GeneratedListener<String> generatedListener = listenerFactory.generateListener(String.class);
+        ReactorCacheListener<String> reactorCacheListener = generatedListener.newInstance(fluxSink);
 
-        listenerClass.getDeclaredMethod("listenGenerated", String.class).invoke(reactorCacheListener, EVENT);
+        generatedListener.listenerClass().getDeclaredMethod("listenGenerated", String.class)
+                .invoke(reactorCacheListener, EVENT);
 
         verify(fluxSink).next(EVENT);
     }
 
+    @Test
+    public void generateListener_whenCalledTwiceForTheSameEventType_returnsTheCachedListener()
+            throws Exception {
+        assertSame(listenerFactory.generateListener(String.class), listenerFactory.generateListener(String.class));
+    }
+
+    @Test
+    public void generateListenerConstructor_createsInstancesOfTheListenerClass()
+            throws Exception {
+        Class<? extends ReactorCacheListener<String>> listenerClass = listenerFactory.generateListenerClass(String.class);
+
+        ListenerConstructor<String> listenerConstructor = listenerFactory.generateListenerConstructor(listenerClass);
+
+        assertSame(listenerClass, listenerConstructor.newInstance(fluxSink).getClass());
+    }
+
     @Test(expected = IllegalArgumentException.class)
-    public void instantiateListener_whenItCanNotInstantiateAListenerClass_throwsIllegalArgumentException()
+    public void generateListenerConstructor_whenItCanNotInstantiateAListenerClass_throwsIllegalArgumentException()
             throws Exception {
-        listenerFactory.instantiatedListener(fluxSink, TestListener.class);
+        listenerFactory.generateListenerConstructor(TestListener.class);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void generateListener_whenEventClassIsNotVisibleToTheLibrary_definesListenerInAChildOfTheEventClassLoader()
+            throws Exception {
+        Class<?> eventClass = new ByteBuddy().subclass(Object.class).name("com.example.ChildLoaderEvent").make()
+                .load(ClassLoader.getSystemClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+        Object event = eventClass.newInstance();
+        @SuppressWarnings("unchecked")
+        FluxSink<Object> objectFluxSink = (FluxSink<Object>) (FluxSink<?>) fluxSink;
+
+        @SuppressWarnings("unchecked")
+        GeneratedListener<Object> generatedListener = (GeneratedListener<Object>) listenerFactory.generateListener(eventClass);
+        ReactorCacheListener<Object> listener = generatedListener.newInstance(objectFluxSink);
+        generatedListener.listenerClass().getDeclaredMethod("listenGenerated", eventClass).invoke(listener, event);
+
+        assertSame(eventClass.getClassLoader(), generatedListener.listenerClass().getClassLoader().getParent());
+        verify(objectFluxSink).next(event);
+    }
+
+    @Test
+    public void evict_whenListenerIsCached_removesItAndUpdatesStats() throws Exception {
+        GeneratedListener<String> generatedListener = listenerFactory.generateListener(String.class);
+
+        assertTrue(listenerFactory.evict(String.class));
+        assertFalse(listenerFactory.evict(String.class));
+        assertNotSame(generatedListener, listenerFactory.generateListener(String.class));
+
+        ListenerCacheStats stats = listenerFactory.stats();
+        assertEquals(1, stats.cachedCount());
+        assertEquals(2, stats.generatedCount());
+        assertEquals(1, stats.evictionCount());
+    }
+
+    @Test
+    public void evict_whenListenerIsGeneratedAgain_definesItInANewChildOfTheLibraryClassLoader() throws Exception {
+        ClassLoader libraryClassLoader = ListenerFactory.class.getClassLoader();
+        ClassLoader evictedClassLoader = listenerFactory.generateListener(String.class).listenerClass().getClassLoader();
+
+        listenerFactory.evict(String.class);
+        ClassLoader classLoader = listenerFactory.generateListener(String.class).listenerClass().getClassLoader();
+
+        assertSame(libraryClassLoader, evictedClassLoader.getParent());
+        assertSame(libraryClassLoader, classLoader.getParent());
+        assertNotSame(evictedClassLoader, classLoader);
+    }
+
+    @Test
+    public void evictAll_removesAllCachedListeners() throws Exception {
+        listenerFactory.generateListener(String.class);
+        listenerFactory.generateListener(Integer.class);
+
+        listenerFactory.evictAll();
+
+        assertEquals(0, listenerFactory.stats().cachedCount());
+        assertEquals(2, listenerFactory.stats().evictionCount());
+    }
+
+    @Test
+    public void generateListener_whenListenerWasPregenerated_returnsItWithoutGeneratingAClass() throws Exception {
+        ListenerConstructor<String> listenerConstructor = sink -> null;
+        ListenerFactory pregeneratedListenerFactory = new ListenerFactory(Collections.singletonList(
+                registrar -> registrar.register(String.class, TestListener.class, listenerConstructor)));
+
+        GeneratedListener<String> generatedListener = pregeneratedListenerFactory.generateListener(String.class);
+
+        assertSame(TestListener.class, generatedListener.listenerClass());
+        assertEquals(0, pregeneratedListenerFactory.stats().generatedCount());
+        assertEquals(1, pregeneratedListenerFactory.stats().cachedCount());
+    }
+
+    @Test
+    public void generateListener_reportsTheCreationOfTheListenerToTheMetrics() throws Exception {
+        EventBusMetricsRecorder recorder = new EventBusMetricsRecorder();
+        ListenerFactory instrumentedFactory = new ListenerFactory(Collections.emptyList(), recorder);
+
+        instrumentedFactory.generateListener(String.class);
+        instrumentedFactory.generateListener(String.class);
+
+        assertEquals(1, recorder.snapshot(String.class).listenerCreations());
+        assertTrue(recorder.snapshot(String.class).listenerCreationNanos() > 0);
+    }
+
+    @Test
+    public void generateListener_whenGivenSeveralEventTypes_generatesOneMethodPerTypeFeedingTheSameSink()
+            throws Exception {
+        GeneratedListener<Object> generatedListener =
+                listenerFactory.generateListener(Arrays.<Class<?>>asList(String.class, Integer.class));
+        ReactorCacheListener<Object> reactorCacheListener = generatedListener.newInstance(objectFluxSink);
+        Class<?> listenerClass = generatedListener.listenerClass();
+
+        listenerClass.getDeclaredMethod("listenGenerated", String.class).invoke(reactorCacheListener, EVENT);
+        listenerClass.getDeclaredMethod("listenGenerated", Integer.class).invoke(reactorCacheListener, 1);
+
+        assertNotNull(listenerClass.getDeclaredMethod("listenGenerated", Integer.class).getAnnotation(Subscribe.class));
+        verify(objectFluxSink).next(EVENT);
+        verify(objectFluxSink).next(1);
+    }
+
+    @Test
+    public void generateListener_whenCalledTwiceForTheSameEventTypes_returnsTheCachedListener() throws Exception {
+        GeneratedListener<Object> generatedListener =
+                listenerFactory.generateListener(Arrays.<Class<?>>asList(String.class, Integer.class));
+
+        assertSame(generatedListener,
+                listenerFactory.generateListener(Arrays.<Class<?>>asList(String.class, Integer.class)));
+        assertNotSame(generatedListener,
+                listenerFactory.generateListener(Arrays.<Class<?>>asList(String.class, Long.class)));
+        assertEquals(2, listenerFactory.stats().generatedCount());
+    }
+
+    @Test
+    public void evict_whenGivenTheFirstOfSeveralEventTypes_removesTheirCachedListener() throws Exception {
+        GeneratedListener<Object> generatedListener =
+                listenerFactory.generateListener(Arrays.<Class<?>>asList(String.class, Integer.class));
+
+        assertTrue(listenerFactory.evict(String.class));
+
+        assertNotSame(generatedListener,
+                listenerFactory.generateListener(Arrays.<Class<?>>asList(String.class, Integer.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void generateListener_whenGivenNoEventTypes_throwsIllegalArgumentException() throws Exception {
+        listenerFactory.generateListener(Collections.<Class<?>>emptyList());
+    }
+}
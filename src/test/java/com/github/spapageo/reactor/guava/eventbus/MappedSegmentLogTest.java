@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MappedSegmentLogTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void poll_returnsTheRecordsInTheOrderTheyWereAppended() throws Exception {
+        MappedSegmentLog log = new MappedSegmentLog(temporaryFolder.getRoot().toPath(), 16);
+
+        log.append(bytes("first"));
+        log.append(bytes("second"));
+        log.append(bytes(""));
+        log.append(bytes("third"));
+
+        assertEquals(4, log.size());
+        assertEquals("first", string(log.peek()));
+        assertEquals("first", string(log.poll()));
+        assertEquals("second", string(log.poll()));
+        assertEquals("", string(log.poll()));
+        assertEquals("third", string(log.poll()));
+        assertNull(log.poll());
+        assertEquals(0, log.size());
+    }
+
+    @Test
+    public void poll_recyclesTheSegmentsThatWereReadCompletely() throws Exception {
+        MappedSegmentLog log = new MappedSegmentLog(temporaryFolder.getRoot().toPath(), 16);
+
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 10; i++) {
+                log.append(bytes("event" + i));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals("event" + i, string(log.poll()));
+            }
+        }
+
+        assertTrue(log.segmentCount() <= 3);
+        assertTrue(countFiles(temporaryFolder.getRoot().toPath()) <= 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void append_whenRecordDoesNotFitInASegment_throwsIllegalArgumentException() throws Exception {
+        new MappedSegmentLog(temporaryFolder.getRoot().toPath(), 16).append(new byte[13]);
+    }
+
+    @Test
+    public void close_deletesTheSegmentFiles() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        MappedSegmentLog log = new MappedSegmentLog(directory, 16);
+        log.append(bytes("first"));
+        log.append(bytes("second"));
+
+        log.close();
+
+        assertEquals(0, countFiles(directory));
+        assertNull(log.poll());
+    }
+
+    private static long countFiles(Path directory) throws Exception {
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
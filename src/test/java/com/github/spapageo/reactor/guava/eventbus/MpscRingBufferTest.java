@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void constructor_roundsCapacityUpToPowerOfTwo() throws Exception {
+        assertEquals(8, new MpscRingBuffer<String>(5).capacity());
+        assertEquals(2, new MpscRingBuffer<String>(1).capacity());
+    }
+
+    @Test
+    public void offer_whenFull_returnsFalse() throws Exception {
+        MpscRingBuffer<String> ringBuffer = new MpscRingBuffer<>(2);
+
+        assertTrue(ringBuffer.offer("a"));
+        assertTrue(ringBuffer.offer("b"));
+        assertFalse(ringBuffer.offer("c"));
+        assertEquals(2, ringBuffer.size());
+    }
+
+    @Test
+    public void poll_returnsElementsInOfferOrderAndFreesSlots() throws Exception {
+        MpscRingBuffer<String> ringBuffer = new MpscRingBuffer<>(2);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ringBuffer.offer("a" + i));
+            assertTrue(ringBuffer.offer("b" + i));
+            assertEquals("a" + i, ringBuffer.poll());
+            assertEquals("b" + i, ringBuffer.poll());
+            assertNull(ringBuffer.poll());
+        }
+        assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    public void offer_whenCalledByConcurrentProducers_doesNotLoseElements() throws Exception {
+        int producers = 4;
+        int elementsPerProducer = 10_000;
+        MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < elementsPerProducer; i++) {
+                        while (!ringBuffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+
+            long sum = 0;
+            int received = 0;
+            while (received < producers * elementsPerProducer) {
+                Integer element = ringBuffer.poll();
+                if (element != null) {
+                    sum += element;
+                    received++;
+                }
+            }
+
+            assertEquals((long) producers * elementsPerProducer * (elementsPerProducer - 1) / 2, sum);
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.Disposable;
+import reactor.core.publisher.FluxSink;
+
+import java.util.function.LongConsumer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MulticastFluxSinkTest {
+
+    private static final String EVENT = "event";
+
+    @Mock
+    private FluxSink<String> firstSink;
+
+    @Mock
+    private FluxSink<String> secondSink;
+
+    private MulticastFluxSink<String> multicastFluxSink = new MulticastFluxSink<>();
+
+    @Test
+    public void next_whenGivenTwoSubscribers_propagatesEventToBoth() throws Exception {
+        multicastFluxSink.add(firstSink);
+        multicastFluxSink.add(secondSink);
+
+        multicastFluxSink.next(EVENT);
+
+        verify(firstSink).next(EVENT);
+        verify(secondSink).next(EVENT);
+    }
+
+    @Test
+    public void next_whenSubscriberIsRemoved_doesNotPropagateEventToIt() throws Exception {
+        multicastFluxSink.add(firstSink);
+        multicastFluxSink.add(secondSink);
+
+        assertFalse(multicastFluxSink.remove(firstSink));
+        multicastFluxSink.next(EVENT);
+
+        verify(firstSink, never()).next(EVENT);
+        verify(secondSink).next(EVENT);
+    }
+
+    @Test
+    public void remove_whenLastSubscriberIsRemoved_terminatesTheSink() throws Exception {
+        multicastFluxSink.add(firstSink);
+
+        assertTrue(multicastFluxSink.remove(firstSink));
+        assertTrue(multicastFluxSink.isCancelled());
+        assertFalse(multicastFluxSink.add(secondSink));
+    }
+
+    @Test
+    public void remove_whenSinkIsNotSubscribed_returnsFalse() throws Exception {
+        multicastFluxSink.add(firstSink);
+
+        assertFalse(multicastFluxSink.remove(secondSink));
+        assertEquals(1, multicastFluxSink.subscriberCount());
+    }
+
+    @Test
+    public void complete_completesAllSubscribersAndRunsTheDisposeCallbacks() throws Exception {
+        Disposable onCancel = mock(Disposable.class);
+        Disposable onDispose = mock(Disposable.class);
+        multicastFluxSink.onCancel(onCancel).onDispose(onDispose);
+        multicastFluxSink.add(firstSink);
+        multicastFluxSink.add(secondSink);
+
+        multicastFluxSink.complete();
+
+        verify(firstSink).complete();
+        verify(secondSink).complete();
+        verify(onDispose).dispose();
+        verifyZeroInteractions(onCancel);
+    }
+
+    @Test
+    public void error_errorsAllSubscribers() throws Exception {
+        IllegalStateException error = new IllegalStateException();
+        multicastFluxSink.add(firstSink);
+        multicastFluxSink.add(secondSink);
+
+        multicastFluxSink.error(error);
+
+        verify(firstSink).error(error);
+        verify(secondSink).error(error);
+    }
+
+    @Test
+    public void remove_whenLastSubscriberIsRemoved_runsTheCancelAndDisposeCallbacksOnce() throws Exception {
+        Disposable onCancel = mock(Disposable.class);
+        Disposable onDispose = mock(Disposable.class);
+        multicastFluxSink.onCancel(onCancel).onDispose(onDispose);
+        multicastFluxSink.add(firstSink);
+
+        multicastFluxSink.remove(firstSink);
+        multicastFluxSink.complete();
+
+        verify(onCancel).dispose();
+        verify(onDispose).dispose();
+    }
+
+    @Test
+    public void onDispose_whenSinkIsAlreadyTerminated_runsTheCallbackImmediately() throws Exception {
+        Disposable onDispose = mock(Disposable.class);
+        multicastFluxSink.complete();
+
+        multicastFluxSink.onDispose(onDispose);
+
+        verify(onDispose).dispose();
+    }
+
+    @Test
+    public void onRequest_reportsTheCurrentDemand() throws Exception {
+        LongConsumer onRequest = mock(LongConsumer.class);
+        when(firstSink.requestedFromDownstream()).thenReturn(5L);
+        multicastFluxSink.add(firstSink);
+
+        multicastFluxSink.onRequest(onRequest);
+
+        verify(onRequest).accept(5L);
+    }
+
+    @Test
+    public void serialize_returnsTheSinkItself() throws Exception {
+        assertSame(multicastFluxSink, multicastFluxSink.serialize());
+    }
+}
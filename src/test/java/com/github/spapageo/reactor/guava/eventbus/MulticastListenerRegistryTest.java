@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.FluxSink;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MulticastListenerRegistryTest {
+
+    @Mock
+    private EventBus eventBus;
+
+    @Mock
+    private FluxSink<String> firstSink;
+
+    @Mock
+    private FluxSink<String> secondSink;
+
+    private MulticastListenerRegistry multicastListenerRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        multicastListenerRegistry = new MulticastListenerRegistry(eventBus, new ListenerFactory());
+    }
+
+    @Test
+    public void subscribe_whenGivenTwoSinks_registersASingleListener() throws Exception {
+        multicastListenerRegistry.subscribe(String.class, firstSink);
+        multicastListenerRegistry.subscribe(String.class, secondSink);
+
+        verify(eventBus, times(1)).register(any(Object.class));
+        assertEquals(2, multicastListenerRegistry.subscriberCount(String.class));
+    }
+
+    @Test
+    public void unsubscribe_whenLastSinkLeaves_unregistersTheListener() throws Exception {
+        multicastListenerRegistry.subscribe(String.class, firstSink);
+        multicastListenerRegistry.subscribe(String.class, secondSink);
+
+        multicastListenerRegistry.unsubscribe(String.class, firstSink);
+        verify(eventBus, never()).unregister(any(Object.class));
+
+        multicastListenerRegistry.unsubscribe(String.class, secondSink);
+        verify(eventBus).unregister(any(Object.class));
+        assertEquals(0, multicastListenerRegistry.subscriberCount(String.class));
+    }
+
+    @Test
+    public void subscribe_afterLastSinkLeft_registersANewListener() throws Exception {
+        multicastListenerRegistry.subscribe(String.class, firstSink);
+        multicastListenerRegistry.unsubscribe(String.class, firstSink);
+
+        multicastListenerRegistry.subscribe(String.class, secondSink);
+
+        verify(eventBus, times(2)).register(any(Object.class));
+        assertEquals(1, multicastListenerRegistry.subscriberCount(String.class));
+    }
+}
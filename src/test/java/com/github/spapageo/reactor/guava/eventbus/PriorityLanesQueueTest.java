@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PriorityLanesQueueTest {
+
+    private final PriorityLanesQueue.Lanes lanes =
+            new PriorityLanesQueue.Lanes(ImmutableMap.of(String.class, 10, Integer.class, 0, Long.class, 0));
+
+    @Test
+    public void lanes_mapsEventClassesToOneLanePerDistinctPriority() throws Exception {
+        assertEquals(2, lanes.laneCount());
+        assertEquals(0, lanes.laneOf(String.class));
+        assertEquals(1, lanes.laneOf(Integer.class));
+        assertEquals(1, lanes.laneOf(Long.class));
+        assertEquals(1, lanes.laneOf(Double.class));
+    }
+
+    @Test
+    public void lanes_whenAClassMatchesSeveralPriorities_mapsItToTheHighestOne() throws Exception {
+        PriorityLanesQueue.Lanes hierarchyLanes =
+                new PriorityLanesQueue.Lanes(ImmutableMap.of(Number.class, 0, Integer.class, 5));
+
+        assertEquals(0, hierarchyLanes.laneOf(Integer.class));
+        assertEquals(1, hierarchyLanes.laneOf(Long.class));
+    }
+
+    @Test
+    public void poll_servesTheHighestPriorityLaneFirst() throws Exception {
+        PriorityLanesQueue<Object> queue = new PriorityLanesQueue<>(lanes, 8, 100);
+        queue.offer(1);
+        queue.offer(2L);
+        queue.offer("a");
+
+        assertEquals(3, queue.size());
+        assertEquals("a", queue.poll());
+        assertEquals(1, queue.poll());
+        assertEquals(2L, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void poll_whenALaneIsPassedOverMoreThanTheStarvationLimit_servesItOnce() throws Exception {
+        PriorityLanesQueue<Object> queue = new PriorityLanesQueue<>(lanes, 8, 2);
+        queue.offer(1);
+        queue.offer(2);
+        for (int i = 0; i < 6; i++) {
+            queue.offer("s" + i);
+        }
+
+        assertEquals("s0", queue.poll());
+        assertEquals("s1", queue.poll());
+        assertEquals(1, queue.poll());
+        assertEquals("s2", queue.poll());
+        assertEquals("s3", queue.poll());
+        assertEquals(2, queue.poll());
+        assertEquals("s4", queue.poll());
+    }
+
+    @Test
+    public void offer_whenALaneIsFull_rejectsTheEventButAcceptsOtherLanes() throws Exception {
+        PriorityLanesQueue<Object> queue = new PriorityLanesQueue<>(lanes, 2, 100);
+
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertTrue(queue.offer("a"));
+    }
+
+    @Test
+    public void clear_emptiesAllTheLanes() throws Exception {
+        PriorityLanesQueue<Object> queue = new PriorityLanesQueue<>(lanes, 8, 100);
+        queue.offer(1);
+        queue.offer("a");
+
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+    }
+}
@@ -27,13 +27,22 @@ import com.google.common.eventbus.EventBus;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -65,27 +74,74 @@ public class ReactorEventBusHelperTest {
 
     @Test
     public void listenFor_whenFluxIsNotSubscribed_createsListenerClassButDoesNotRegisterListener() throws Exception {
-        Mockito.<Class<? extends ReactorCacheListener<String>>>when(listenerFactory.generateListenerClass(String.class))
-                .thenReturn(TestListener.class);
+        when(listenerFactory.generateListener(String.class))
+                .thenReturn(new GeneratedListener<>(TestListener.class, fluxSink -> Mockito.mock(TestListener.class)));
 
         reactorEventBusHelper.listenFor(String.class);
 
-        verify(listenerFactory).generateListenerClass(String.class);
+        verify(listenerFactory).generateListener(String.class);
         verify(eventBus, times(0)).register(any(Object.class));
     }
 
     @Test
     public void listenFor_whenFluxIsSubscribed_createsListenerClassAndRegisterListener() throws Exception {
-        Mockito.<Class<? extends ReactorCacheListener<String>>>when(listenerFactory.generateListenerClass(String.class))
-                .thenReturn(TestListener.class);
-
         ReactorCacheListener<String> listener = Mockito.mock(TestListener.class);
-        when(listenerFactory.instantiatedListener(any(), eq(TestListener.class))).thenReturn(listener);
+        when(listenerFactory.generateListener(String.class))
+                .thenReturn(new GeneratedListener<>(TestListener.class, fluxSink -> listener));
 
         StepVerifier.create(reactorEventBusHelper.listenFor(String.class)).expectSubscription().thenCancel().verify();
 
-        verify(listenerFactory).generateListenerClass(String.class);
+        verify(listenerFactory).generateListener(String.class);
         verify(eventBus).register(listener);
     }
 
-}
\ No newline at end of file
+    @Test
+    @SuppressWarnings("unchecked")
+    public void listenForAny_whenFluxIsSubscribed_registersOneListenerForTheMostGeneralEventTypes() throws Exception {
+        ReactorCacheListener<Object> listener = Mockito.mock(ReactorCacheListener.class);
+        when(listenerFactory.generateListener(Arrays.<Class<?>>asList(Number.class, String.class)))
+                .thenReturn(new GeneratedListener(TestListener.class, fluxSink -> listener));
+
+        StepVerifier.create(reactorEventBusHelper.<Object>listenForAny(Integer.class, Number.class, String.class,
+                Number.class)).expectSubscription().thenCancel().verify();
+
+        verify(eventBus).register(listener);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void listenForAny_whenGivenNoClasses_throwsIllegalArgumentException() throws Exception {
+        reactorEventBusHelper.listenForAny();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void listenForAny_whenGivenPrimitiveClass_throwsIllegalArgumentException() throws Exception {
+        reactorEventBusHelper.listenForAny(String.class, int.class);
+    }
+
+    @Test
+    public void publish_postsAllElementsOfTheSourceInOrder() throws Exception {
+        StepVerifier.create(ReactorEventBusHelper.publish(Flux.just("a", "b"), eventBus, Schedulers.immediate()))
+                .verifyComplete();
+
+        InOrder inOrder = inOrder(eventBus);
+        inOrder.verify(eventBus).post("a");
+        inOrder.verify(eventBus).post("b");
+    }
+
+    @Test
+    public void publish_requestsAtMostPrefetchElementsAhead() throws Exception {
+        List<Long> requests = new ArrayList<>();
+        Flux<Integer> source = Flux.range(0, 100).doOnRequest(requests::add);
+
+        StepVerifier.create(ReactorEventBusHelper.publish(source, eventBus, Schedulers.immediate(), 8))
+                .verifyComplete();
+
+        verify(eventBus, times(100)).post(any(Integer.class));
+        assertEquals(8L, (long) Collections.max(requests));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void publish_whenGivenNonPositivePrefetch_throwsIllegalArgumentException() throws Exception {
+        ReactorEventBusHelper.publish(Flux.just("a"), eventBus, Schedulers.immediate(), 0);
+    }
+}
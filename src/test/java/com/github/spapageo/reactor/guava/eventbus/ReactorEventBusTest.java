@@ -0,0 +1,291 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+import reactor.core.Disposable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReactorEventBusTest {
+
+    private ReactorEventBus eventBus = new ReactorEventBus();
+
+    @Test
+    public void post_whenListenerRegistered_invokesAllSubscribersOfTheEventHierarchy() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        eventBus.register(listener);
+
+        eventBus.post("event");
+        eventBus.post(1);
+
+        assertEquals(Arrays.asList("event"), listener.strings);
+        assertEquals(Arrays.asList("event", 1), listener.objects);
+    }
+
+    @Test
+    public void post_whenListenerUnregistered_doesNotInvokeItAnymore() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        eventBus.register(listener);
+        eventBus.unregister(listener);
+
+        eventBus.post("event");
+
+        assertTrue(listener.strings.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unregister_whenListenerNotRegistered_throwsIllegalArgumentException() throws Exception {
+        eventBus.unregister(new RecordingListener());
+    }
+
+    @Test
+    public void post_whenNoSubscribers_postsDeadEvent() throws Exception {
+        DeadEventListener listener = new DeadEventListener();
+        eventBus.register(listener);
+
+        eventBus.post("event");
+
+        assertEquals(1, listener.deadEvents.size());
+        assertEquals("event", listener.deadEvents.get(0).getEvent());
+        assertSame(eventBus, listener.deadEvents.get(0).getSource());
+    }
+
+    @Test
+    public void post_whenSubscriberMethodIsNotPublic_invokesItThroughReflection() throws Exception {
+        PrivateListener listener = new PrivateListener();
+        eventBus.register(listener);
+
+        eventBus.post("event");
+
+        assertEquals(Arrays.asList("event"), listener.strings);
+    }
+
+    @Test
+    public void post_whenSubscriberThrows_passesExceptionToTheHandler() throws Exception {
+        AtomicReference<Throwable> exception = new AtomicReference<>();
+        AtomicReference<Method> method = new AtomicReference<>();
+        ReactorEventBus eventBus = new ReactorEventBus("test", ReactorEventBus.Ordering.PER_THREAD_QUEUED,
+                (e, event, subscriber, subscriberMethod) -> {
+                    exception.set(e);
+                    method.set(subscriberMethod);
+                });
+        eventBus.register(new ThrowingListener());
+
+        eventBus.post("event");
+
+        assertEquals("event", exception.get().getMessage());
+        assertEquals("onEvent", method.get().getName());
+    }
+
+    @Test
+    public void post_whenPerThreadQueued_dispatchesNestedEventsAfterTheCurrentEvent() throws Exception {
+        List<Object> events = new ArrayList<>();
+        eventBus.register(new ReentrantListener(eventBus, events));
+        eventBus.register(new TailListener(events));
+
+        eventBus.post("event");
+
+        assertEquals(Arrays.asList("first:event", "second:event", "first:1", "second:1"), events);
+    }
+
+    @Test
+    public void post_whenEarlierDispatchOnTheThreadFailed_dispatchesTheEvent() throws Exception {
+        AtomicBoolean throwOnce = new AtomicBoolean(true);
+        ReactorEventBus eventBus = new ReactorEventBus("test", ReactorEventBus.Ordering.PER_THREAD_QUEUED,
+                (e, event, subscriber, subscriberMethod) -> {
+                    if (throwOnce.getAndSet(false)) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+        List<Object> events = new ArrayList<>();
+        eventBus.register(new ThrowingListener());
+        eventBus.register(new TailListener(events));
+
+        try {
+            eventBus.post("first");
+            fail("The exception of the handler should propagate");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        eventBus.post("second");
+
+        assertTrue(events.contains("second:second"));
+    }
+
+    @Test
+    public void post_whenImmediate_dispatchesNestedEventsImmediately() throws Exception {
+        ReactorEventBus eventBus = new ReactorEventBus("test", ReactorEventBus.Ordering.IMMEDIATE);
+        List<Object> events = new ArrayList<>();
+        eventBus.register(new ReentrantListener(eventBus, events));
+        eventBus.register(new TailListener(events));
+
+        eventBus.post("event");
+
+        assertEquals(Arrays.asList("first:event", "first:1", "second:1", "second:event"), events);
+    }
+
+    @Test
+    public void listenFor_whenSubscribed_receivesPostedEventsUntilDisposed() throws Exception {
+        List<Object> events = new ArrayList<>();
+        Disposable disposable = eventBus.listenFor(CharSequence.class).subscribe(events::add);
+
+        eventBus.post("event");
+        disposable.dispose();
+        eventBus.post("other");
+
+        assertEquals(Arrays.asList("event"), events);
+        assertEquals(0, eventBus.subscribersFor(String.class).length);
+    }
+
+    @Test
+    public void subscribersFor_isRebuiltOnRegistration() throws Exception {
+        assertEquals(0, eventBus.subscribersFor(String.class).length);
+
+        eventBus.register(new RecordingListener());
+
+        assertEquals(2, eventBus.subscribersFor(String.class).length);
+        assertNull(eventBus.subscribersFor(String.class)[0].method().getAnnotation(AllowConcurrentEvents.class));
+    }
+
+    @Test
+    public void post_whenTypeMatchingIsExact_invokesOnlyTheSubscribersOfTheEventClass() throws Exception {
+        ReactorEventBus exactEventBus = new ReactorEventBus("exact", ReactorEventBus.Ordering.PER_THREAD_QUEUED,
+                ReactorEventBus.TypeMatching.EXACT);
+        RecordingListener listener = new RecordingListener();
+        exactEventBus.register(listener);
+
+        exactEventBus.post("event");
+        exactEventBus.post(new Object());
+
+        assertEquals(Arrays.asList("event"), listener.strings);
+        assertEquals(1, listener.objects.size());
+        assertEquals(1, exactEventBus.subscribersFor(String.class).length);
+    }
+
+    @Test
+    public void post_whenTypeMatchingIsExactAndOnlySuperTypesAreSubscribed_postsDeadEvent() throws Exception {
+        ReactorEventBus exactEventBus = new ReactorEventBus("exact", ReactorEventBus.Ordering.IMMEDIATE,
+                ReactorEventBus.TypeMatching.EXACT);
+        DeadEventListener deadEventListener = new DeadEventListener();
+        RecordingListener listener = new RecordingListener();
+        exactEventBus.register(deadEventListener);
+        exactEventBus.register(listener);
+
+        exactEventBus.post(1);
+        exactEventBus.unregister(listener);
+        exactEventBus.post(new Object());
+
+        assertEquals(2, deadEventListener.deadEvents.size());
+        assertEquals(1, deadEventListener.deadEvents.get(0).getEvent());
+        assertTrue(listener.objects.isEmpty());
+    }
+
+    public static class RecordingListener {
+        final List<Object> strings = new ArrayList<>();
+        final List<Object> objects = new ArrayList<>();
+
+        @Subscribe
+        public void onString(String event) {
+            strings.add(event);
+        }
+
+        @Subscribe
+        public void onObject(Object event) {
+            objects.add(event);
+        }
+    }
+
+    public static class DeadEventListener {
+        final List<DeadEvent> deadEvents = new ArrayList<>();
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            deadEvents.add(event);
+        }
+    }
+
+    private static class PrivateListener {
+        final List<Object> strings = new ArrayList<>();
+
+        @Subscribe
+        private void onString(String event) {
+            strings.add(event);
+        }
+    }
+
+    public static class ThrowingListener {
+        @Subscribe
+        public void onEvent(String event) {
+            throw new IllegalStateException(event);
+        }
+    }
+
+    public static class ReentrantListener {
+        private final ReactorEventBus eventBus;
+        private final List<Object> events;
+
+        ReentrantListener(ReactorEventBus eventBus, List<Object> events) {
+            this.eventBus = eventBus;
+            this.events = events;
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void first(Object event) {
+            events.add("first:" + event);
+            if (event instanceof String) {
+                eventBus.post(1);
+            }
+        }
+    }
+
+    public static class TailListener {
+        private final List<Object> events;
+
+        TailListener(List<Object> events) {
+            this.events = events;
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void second(Object event) {
+            events.add("second:" + event);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplayFluxSinkTest {
+
+    @Mock
+    private FluxSink<Integer> firstSink;
+
+    @Mock
+    private FluxSink<Integer> secondSink;
+
+    @Mock
+    private FluxSink<Integer> thirdSink;
+
+    @Test
+    public void add_replaysTheRetainedEventsBeforeTheLiveOnes() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(2, -1, Schedulers.immediate());
+        replaySink.next(1);
+        replaySink.next(2);
+        replaySink.next(3);
+
+        replaySink.add(firstSink);
+        replaySink.next(4);
+
+        InOrder inOrder = inOrder(firstSink);
+        inOrder.verify(firstSink).next(2);
+        inOrder.verify(firstSink).next(3);
+        inOrder.verify(firstSink).next(4);
+        verify(firstSink, never()).next(1);
+    }
+
+    @Test
+    public void add_whenEventIsPostedDuringTheReplay_propagatesItAfterTheHistory() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(2, -1, Schedulers.immediate());
+        replaySink.next(1);
+        replaySink.next(2);
+        doAnswer(invocation -> {
+            replaySink.next(3);
+            return null;
+        }).when(firstSink).next(1);
+
+        replaySink.add(firstSink);
+
+        InOrder inOrder = inOrder(firstSink);
+        inOrder.verify(firstSink).next(1);
+        inOrder.verify(firstSink).next(2);
+        inOrder.verify(firstSink).next(3);
+        verify(firstSink, times(3)).next(anyInt());
+    }
+
+    @Test
+    public void add_doesNotBlockPostingWhileReplaying() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(2, -1, Schedulers.immediate());
+        replaySink.next(1);
+        AtomicBoolean posted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Thread poster = new Thread(() -> {
+                replaySink.next(2);
+                posted.set(true);
+            });
+            poster.start();
+            poster.join(TimeUnit.SECONDS.toMillis(5));
+            return null;
+        }).when(firstSink).next(1);
+
+        replaySink.add(firstSink);
+
+        assertTrue(posted.get());
+        verify(firstSink).next(2);
+    }
+
+    @Test
+    public void next_whenHistoryGrowsPastTheInitialCapacity_retainsTheLatestEventsInOrder() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(40, -1, Schedulers.immediate());
+        for (int i = 0; i < 50; i++) {
+            replaySink.next(i);
+        }
+
+        replaySink.add(firstSink);
+
+        assertEquals(40, replaySink.retainedCount());
+        InOrder inOrder = inOrder(firstSink);
+        for (int i = 10; i < 50; i++) {
+            inOrder.verify(firstSink).next(i);
+        }
+        verify(firstSink, times(40)).next(anyInt());
+    }
+
+    @Test
+    public void add_whenWindowHasElapsed_doesNotReplayExpiredEvents() throws Exception {
+        VirtualTimeScheduler clock = VirtualTimeScheduler.create();
+        ReplayFluxSink<Integer> replaySink =
+                new ReplayFluxSink<>(Integer.MAX_VALUE, TimeUnit.SECONDS.toNanos(10), clock);
+        replaySink.next(1);
+        clock.advanceTimeBy(Duration.ofSeconds(6));
+        replaySink.next(2);
+        clock.advanceTimeBy(Duration.ofSeconds(6));
+
+        replaySink.add(firstSink);
+
+        verify(firstSink).next(2);
+        verify(firstSink, never()).next(1);
+        assertEquals(1, replaySink.retainedCount());
+    }
+
+    @Test
+    public void remove_whenOtherSubscribersRemain_stopsPropagatingEventsButKeepsTheHistory() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(4, -1, Schedulers.immediate());
+        replaySink.add(firstSink);
+        replaySink.add(secondSink);
+        replaySink.next(1);
+
+        assertFalse(replaySink.remove(firstSink));
+        replaySink.next(2);
+        replaySink.add(thirdSink);
+
+        verify(firstSink).next(1);
+        verify(firstSink, never()).next(2);
+        verify(thirdSink).next(1);
+        verify(thirdSink).next(2);
+        assertEquals(2, replaySink.subscriberCount());
+    }
+
+    @Test
+    public void remove_whenLastSubscriberLeaves_terminatesTheSinkAndDropsTheHistory() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(4, -1, Schedulers.immediate());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        replaySink.onCancel(() -> cancelled.set(true));
+        replaySink.add(firstSink);
+        replaySink.next(1);
+
+        assertTrue(replaySink.remove(firstSink));
+
+        assertTrue(cancelled.get());
+        assertEquals(0, replaySink.retainedCount());
+        assertFalse(replaySink.add(secondSink));
+        verify(secondSink, never()).next(any());
+    }
+
+    @Test
+    public void complete_completesAllSubscribers() throws Exception {
+        ReplayFluxSink<Integer> replaySink = new ReplayFluxSink<>(2, -1, Schedulers.immediate());
+        replaySink.add(firstSink);
+        replaySink.add(secondSink);
+
+        replaySink.complete();
+
+        verify(firstSink).complete();
+        verify(secondSink).complete();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplayListenerRegistryTest {
+
+    @Mock
+    private EventBus eventBus;
+
+    @Mock
+    private FluxSink<String> firstSink;
+
+    @Mock
+    private FluxSink<String> secondSink;
+
+    private ReplayListenerRegistry replayListenerRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        replayListenerRegistry = new ReplayListenerRegistry(eventBus, new ListenerFactory());
+    }
+
+    @Test
+    public void subscribe_whenGivenTheSameRetention_sharesTheSinkAndRegistersOnce() throws Exception {
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), secondSink);
+
+        verify(eventBus, times(1)).register(any(Object.class));
+        assertEquals(1, replayListenerRegistry.registrationCount());
+    }
+
+    @Test
+    public void subscribe_whenGivenDifferentRetentions_registersAListenerPerRetention() throws Exception {
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+        replayListenerRegistry.subscribe(String.class, 20, -1, Schedulers.immediate(), secondSink);
+
+        verify(eventBus, times(2)).register(any(Object.class));
+        assertEquals(2, replayListenerRegistry.registrationCount());
+    }
+
+    @Test
+    public void unsubscribe_whenOtherSubscribersRemain_keepsTheListenerRegistered() throws Exception {
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), secondSink);
+
+        replayListenerRegistry.unsubscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+
+        verify(eventBus, never()).unregister(any());
+        assertEquals(1, replayListenerRegistry.registrationCount());
+    }
+
+    @Test
+    public void unsubscribe_whenLastSubscriberLeaves_unregistersTheListenerAndDropsTheSink() throws Exception {
+        ArgumentCaptor<Object> listener = ArgumentCaptor.forClass(Object.class);
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+        verify(eventBus).register(listener.capture());
+
+        replayListenerRegistry.unsubscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+
+        verify(eventBus).unregister(listener.getValue());
+        assertEquals(0, replayListenerRegistry.registrationCount());
+    }
+
+    @Test
+    public void subscribe_afterLastSubscriberLeft_registersANewListenerWithoutTheOldHistory() throws Exception {
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+        replayListenerRegistry.unsubscribe(String.class, 10, -1, Schedulers.immediate(), firstSink);
+
+        replayListenerRegistry.subscribe(String.class, 10, -1, Schedulers.immediate(), secondSink);
+
+        verify(eventBus, times(2)).register(any(Object.class));
+        assertEquals(1, replayListenerRegistry.registrationCount());
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+import reactor.core.publisher.FluxSink.OverflowStrategy;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ShardedReactorEventBusHelperTest {
+
+    private final EventBus firstShard = new EventBus("first");
+    private final EventBus secondShard = new EventBus("second");
+    private final ShardedReactorEventBusHelper helper =
+            new ShardedReactorEventBusHelper(Arrays.asList(firstShard, secondShard));
+
+    @Test
+    public void shardFor_whenGivenEqualKeys_returnsTheSameShard() throws Exception {
+        assertSame(helper.shardFor("key"), helper.shardFor(new String("key")));
+    }
+
+    @Test
+    public void shardFor_spreadsKeysOverAllTheShards() throws Exception {
+        Set<EventBus> usedShards = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            usedShards.add(helper.shardFor(i));
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(firstShard, secondShard)), usedShards);
+    }
+
+    @Test
+    public void shardIndex_isNeverNegative() throws Exception {
+        assertTrue(ShardedReactorEventBusHelper.shardIndex(-1, 3) >= 0);
+        assertTrue(ShardedReactorEventBusHelper.shardIndex(Integer.MIN_VALUE, 7) >= 0);
+    }
+
+    @Test
+    public void post_postsTheEventToTheShardOfTheKey() throws Exception {
+        EventBus shard = mock(EventBus.class);
+        ShardedReactorEventBusHelper singleShardHelper =
+                new ShardedReactorEventBusHelper(Collections.singletonList(shard));
+
+        singleShardHelper.post("key", 1);
+
+        verify(shard).post(1);
+    }
+
+    @Test
+    public void listenFor_mergesTheEventsOfAllTheShards() throws Exception {
+        StepVerifier.create(helper.listenFor(Integer.class))
+                .then(() -> {
+                    firstShard.post(1);
+                    secondShard.post(2);
+                })
+                .expectNext(1, 2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void post_whenShardsAreCreated_postsTheEventsOnTheLaneOfTheShardInOrder() throws Exception {
+        try (ShardedReactorEventBusHelper lanedHelper = new ShardedReactorEventBusHelper(2)) {
+            StepVerifier.create(lanedHelper.listenFor(Integer.class)
+                    .map(i -> Thread.currentThread().getName() + ":" + i))
+                    .then(() -> {
+                        lanedHelper.post("key", 1);
+                        lanedHelper.post("key", 2);
+                    })
+                    .expectNextMatches(event -> event.startsWith("event-shard-") && event.endsWith(":1"))
+                    .expectNextMatches(event -> event.startsWith("event-shard-") && event.endsWith(":2"))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    public void post_whenLaneIsFullAndStrategyIsDrop_discardsTheNewEvent() throws Exception {
+        try (ShardedReactorEventBusHelper lanedHelper = new ShardedReactorEventBusHelper(1, 1, OverflowStrategy.DROP)) {
+            BlockingListener listener = fillLane(lanedHelper);
+
+            lanedHelper.post("key", 3);
+            listener.release.countDown();
+
+            assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(1, 2), listener.received);
+        }
+    }
+
+    @Test
+    public void post_whenLaneIsFullAndStrategyIsLatest_discardsTheOldestWaitingEvent() throws Exception {
+        try (ShardedReactorEventBusHelper lanedHelper =
+                     new ShardedReactorEventBusHelper(1, 1, OverflowStrategy.LATEST)) {
+            BlockingListener listener = fillLane(lanedHelper);
+
+            lanedHelper.post("key", 3);
+            listener.release.countDown();
+
+            assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(1, 3), listener.received);
+        }
+    }
+
+    @Test
+    public void post_whenLaneIsFullAndStrategyIsError_throwsIllegalStateException() throws Exception {
+        try (ShardedReactorEventBusHelper lanedHelper =
+                     new ShardedReactorEventBusHelper(1, 1, OverflowStrategy.ERROR)) {
+            BlockingListener listener = fillLane(lanedHelper);
+            try {
+                lanedHelper.post("key", 3);
+                fail("Expected the post to a full lane to fail");
+            } catch (IllegalStateException expected) {
+                // the event is rejected
+            } finally {
+                listener.release.countDown();
+            }
+        }
+    }
+
+    @Test
+    public void post_whenLaneIsFullAndStrategyIsBuffer_blocksUntilTheLaneHasRoom() throws Exception {
+        try (ShardedReactorEventBusHelper lanedHelper =
+                     new ShardedReactorEventBusHelper(1, 1, OverflowStrategy.BUFFER)) {
+            BlockingListener listener = fillLane(lanedHelper);
+            Thread poster = new Thread(() -> lanedHelper.post("key", 3));
+            poster.start();
+            while (poster.getState() != Thread.State.WAITING) {
+                assertTrue(poster.isAlive());
+                Thread.sleep(1);
+            }
+
+            listener.release.countDown();
+            poster.join(5000);
+
+            assertFalse(poster.isAlive());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void post_whenClosed_throwsIllegalStateException() throws Exception {
+        ShardedReactorEventBusHelper lanedHelper = new ShardedReactorEventBusHelper(1);
+        lanedHelper.close();
+
+        lanedHelper.post("key", 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_whenLaneOverflowStrategyIsIgnore_throwsIllegalArgumentException() throws Exception {
+        new ShardedReactorEventBusHelper(1, 1, OverflowStrategy.IGNORE);
+    }
+
+    /**
+     * Blocks the lane of the single shard of the helper on the event 1 and fills its queue with the event 2
+     */
+    private static BlockingListener fillLane(ShardedReactorEventBusHelper lanedHelper) throws InterruptedException {
+        BlockingListener listener = new BlockingListener();
+        lanedHelper.shardFor("key").register(listener);
+        lanedHelper.post("key", 1);
+        assertTrue(listener.blocked.await(5, TimeUnit.SECONDS));
+        lanedHelper.post("key", 2);
+        return listener;
+    }
+
+    @Test
+    public void constructor_sharesTheListenerClassesOfAllTheShards() throws Exception {
+        ShardedReactorEventBusHelper configuredHelper = new ShardedReactorEventBusHelper(
+                Arrays.asList(firstShard, secondShard), builder -> builder.multicast(true));
+
+        StepVerifier.create(configuredHelper.listenFor(Integer.class))
+                .then(() -> {
+                    firstShard.post(1);
+                    secondShard.post(2);
+                })
+                .expectNext(1, 2)
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, configuredHelper.listenerCacheStats().generatedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_whenGivenNoShards_throwsIllegalArgumentException() throws Exception {
+        new ShardedReactorEventBusHelper(0);
+    }
+
+    public static class BlockingListener {
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch delivered = new CountDownLatch(2);
+        private final List<Integer> received = new CopyOnWriteArrayList<>();
+
+        @Subscribe
+        public void onEvent(Integer event) throws InterruptedException {
+            blocked.countDown();
+            release.await();
+            received.add(event);
+            delivered.countDown();
+        }
+    }
+}
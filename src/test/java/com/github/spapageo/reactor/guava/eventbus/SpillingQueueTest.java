@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.spapageo.reactor.guava.eventbus;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class SpillingQueueTest {
+
+    private static final EventCodec<String> CODEC = new EventCodec<String>() {
+        @Override
+        public byte[] encode(String event) {
+            return event.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SpillingQueue<String> spillingQueue;
+
+    @Before
+    public void setUp() throws Exception {
+        spillingQueue = new SpillingQueue<>(new MpscRingBuffer<>(2),
+                new MappedSegmentLog(temporaryFolder.getRoot().toPath(), 64), CODEC);
+    }
+
+    @Test
+    public void offer_whenMemoryIsFull_spillsToDiskAndKeepsTheOrder() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spillingQueue.offer("event" + i));
+        }
+
+        assertEquals(8, spillingQueue.spilledCount());
+        assertEquals(10, spillingQueue.size());
+        assertEquals("event0", spillingQueue.poll());
+        assertEquals("event1", spillingQueue.poll());
+        // Memory has space again but the new event must follow the spilled ones
+        spillingQueue.offer("event10");
+        for (int i = 2; i <= 10; i++) {
+            assertEquals("event" + i, spillingQueue.poll());
+        }
+        assertNull(spillingQueue.poll());
+        assertTrue(spillingQueue.isEmpty());
+    }
+
+    @Test
+    public void offer_afterSpilledEventsWereRead_usesTheMemoryAgain() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            spillingQueue.offer("event" + i);
+        }
+        for (int i = 0; i < 3; i++) {
+            spillingQueue.poll();
+        }
+
+        spillingQueue.offer("event3");
+
+        assertEquals(0, spillingQueue.spilledCount());
+        assertEquals("event3", spillingQueue.peek());
+        assertEquals("event3", spillingQueue.poll());
+    }
+
+    @Test
+    public void offer_whenEventDoesNotFitInASegment_returnsFalse() throws Exception {
+        spillingQueue.offer("a");
+        spillingQueue.offer("b");
+
+        assertFalse(spillingQueue.offer(new String(new char[100])));
+    }
+
+    @Test
+    public void close_discardsAllEvents() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            spillingQueue.offer("event" + i);
+        }
+
+        spillingQueue.close();
+
+        assertTrue(spillingQueue.isEmpty());
+        assertNull(spillingQueue.poll());
+        assertEquals(0, temporaryFolder.getRoot().list().length);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2017 Spyridon Papageorgiou
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.spapageo.reactor.guava.eventbus;
+
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs against the multi-release jar on Java 21 and later, where the generated invokers and listeners cannot be
+ * injected into an existing class loader.
+ */
+public class ReactorEventBusJava21Test {
+
+    private final ReactorEventBus eventBus = new ReactorEventBus();
+
+    @Test
+    public void post_whenPublicListenerRegistered_invokesItsSubscriberThroughAGeneratedInvoker() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        eventBus.register(listener);
+
+        eventBus.post("event");
+
+        assertEquals(Arrays.asList("event"), listener.events);
+    }
+
+    @Test
+    public void post_whenFluxSubscribed_propagatesTheEventThroughAGeneratedListener() throws Exception {
+        List<String> received = new ArrayList<>();
+        Disposable subscription = eventBus.listenFor(String.class).subscribe(received::add);
+
+        eventBus.post("event");
+        subscription.dispose();
+
+        assertEquals(Arrays.asList("event"), received);
+    }
+
+    public static class RecordingListener {
+        private final List<String> events = new ArrayList<>();
+
+        @Subscribe
+        public void onEvent(String event) {
+            events.add(event);
+        }
+    }
+}